@@ -3,10 +3,22 @@ package com.aspose.words.examples.loading_saving;
 import com.aspose.words.*;
 import com.aspose.words.examples.Utils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class PageSplitter {
     public static void main(String[] args) throws Exception {
@@ -36,13 +48,37 @@ public class PageSplitter {
         DocumentPageSplitter splitter = new DocumentPageSplitter(doc);
 
         // Save each page to the disk as a separate document.
-        for (int page = 1; page <= doc.getPageCount(); page++) {
+        int pageCount = doc.getPageCount();
+        for (int page = 1; page <= pageCount; page++) {
             Document pageDoc = splitter.getDocumentOfPage(page);
             pageDoc.save(new File(outFolder, MessageFormat.format("{0} - page{1} Out{2}", fileName, page, extensionName)).getAbsolutePath());
         }
     }
     //ExEnd:SplitDocumentToPages
 
+    //ExStart:SplitDocumentToZip
+    public static void SplitDocumentToZip(File docName) throws Exception {
+        String fileName = docName.getName();
+        String extensionName = fileName.substring(fileName.lastIndexOf("."));
+        File outFolder = new File(docName.getParent(), "Out");
+        System.out.println("Processing document: " + fileName);
+
+        Document doc = new Document(docName.getAbsolutePath());
+
+        // Split nodes in the document into separate pages.
+        DocumentPageSplitter splitter = new DocumentPageSplitter(doc);
+
+        // Stream each page into the archive as soon as it is produced.
+        ZipOutputStream zipStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(new File(outFolder, fileName + " - pages.zip"))));
+        try {
+            ZipPageSink sink = new ZipPageSink(zipStream, fileName + " - page", " Out" + extensionName);
+            splitter.writePages(sink, FileFormatUtil.extensionToSaveFormat(extensionName));
+        } finally {
+            zipStream.close();
+        }
+    }
+    //ExEnd:SplitDocumentToZip
+
     //ExStart:SplitAllDocumentsToPages
     public static void SplitAllDocumentsToPages(String folderName) throws Exception {
         File[] files = new File(folderName).listFiles();
@@ -54,11 +90,100 @@ public class PageSplitter {
         }
     }
     //ExEnd:SplitAllDocumentsToPages
+
+    //ExStart:SplitDocumentToPagesInParallel
+    public static void SplitDocumentToPages(File docName, ExecutorService pageExecutor, int pagesPerBatch) throws Exception {
+        if (pagesPerBatch < 1) {
+            throw new IllegalArgumentException("'pagesPerBatch' must be positive");
+        }
+
+        final String fileName = docName.getName();
+        final String extensionName = fileName.substring(fileName.lastIndexOf("."));
+        final String outFolder = new File(docName.getParent(), "Out").getAbsolutePath();
+        System.out.println("Processing document: " + fileName);
+
+        Document doc = new Document(docName.getAbsolutePath());
+
+        // Split nodes in the document into separate pages.
+        final DocumentPageSplitter splitter = new DocumentPageSplitter(doc);
+
+        // Each batch of pages is exported by a separate task working on its own copy of the split document, so pages
+        // are imported and saved in parallel. Only making the copies reads the shared document and is serialized.
+        // Larger batches need fewer copies, smaller ones spread the pages more evenly over the threads.
+        int pageCount = doc.getPageCount();
+        ArrayList<Future<Void>> batches = new ArrayList<Future<Void>>();
+        for (int batchStart = 1; batchStart <= pageCount; batchStart += pagesPerBatch) {
+            final int startPage = batchStart;
+            final int endPage = Math.min(batchStart + pagesPerBatch - 1, pageCount);
+            batches.add(pageExecutor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    DocumentPageSplitter batchSplitter;
+                    synchronized (splitter) {
+                        batchSplitter = splitter.copy();
+                    }
+
+                    for (int page = startPage; page <= endPage; page++) {
+                        Document pageDoc = batchSplitter.getDocumentOfPage(page);
+                        pageDoc.save(new File(outFolder, MessageFormat.format("{0} - page{1} Out{2}", fileName, page, extensionName)).getAbsolutePath());
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        waitForAll(batches);
+    }
+    //ExEnd:SplitDocumentToPagesInParallel
+
+    //ExStart:SplitAllDocumentsToPagesInParallel
+    public static void SplitAllDocumentsToPages(String folderName, int maxDocumentsInFlight, int pageThreadCount, final int pagesPerBatch) throws Exception {
+        File[] files = new File(folderName).listFiles();
+
+        // Documents and pages use separate pools so a document task waiting for its pages never blocks a page task.
+        // The size of the document pool caps how many source documents are held in memory at the same time.
+        ExecutorService documentExecutor = Executors.newFixedThreadPool(maxDocumentsInFlight);
+        final ExecutorService pageExecutor = Executors.newFixedThreadPool(pageThreadCount);
+        try {
+            ArrayList<Future<Void>> documents = new ArrayList<Future<Void>>();
+            for (final File file : files) {
+                if (file.isFile()) {
+                    documents.add(documentExecutor.submit(new Callable<Void>() {
+                        public Void call() throws Exception {
+                            SplitDocumentToPages(file, pageExecutor, pagesPerBatch);
+                            return null;
+                        }
+                    }));
+                }
+            }
+
+            waitForAll(documents);
+        } finally {
+            documentExecutor.shutdownNow();
+            pageExecutor.shutdownNow();
+        }
+    }
+    //ExEnd:SplitAllDocumentsToPagesInParallel
+
+    private static void waitForAll(List<Future<Void>> futures) throws Exception {
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
 }
 
 //ExStart:DocumentPageSplitter
 class DocumentPageSplitter {
-    private PageNumberFinder pageNumberFinder;
+    private final Document document;
+    private final PageNodeIndex pageNodeIndex;
 
     /// <summary>
     /// Initializes a new instance of the <see cref="DocumentPageSplitter"/> class.
@@ -67,14 +192,32 @@ class DocumentPageSplitter {
     /// </summary>
     /// <param name="source">source document</param>
     public DocumentPageSplitter(Document source) throws Exception {
-        this.pageNumberFinder = PageNumberFinderFactory.create(source);
+        this(source, PageNumberFinderFactory.create(source).getPageNodeIndex());
+    }
+
+    private DocumentPageSplitter(Document document, PageNodeIndex pageNodeIndex) {
+        this.document = document;
+        this.pageNodeIndex = pageNodeIndex;
     }
 
     /// <summary>
     /// Gets the document this instance works with.
     /// </summary>
     private Document getDocument() {
-        return this.pageNumberFinder.getDocument();
+        return this.document;
+    }
+
+    /// <summary>
+    /// Creates a splitter over a deep copy of the split document which shares the page index of this instance.
+    /// The copy does not need a layout, and pages can be taken from it and from this instance on different threads.
+    /// Creating the copy reads this instance, so it must not run concurrently with other calls on this instance.
+    /// </summary>
+    /// <returns>
+    /// The <see cref="DocumentPageSplitter"/>.
+    /// </returns>
+    public DocumentPageSplitter copy() {
+        Document copy = (Document) this.document.deepClone(true);
+        return new DocumentPageSplitter(copy, this.pageNodeIndex.forCopy(copy));
     }
 
     /// <summary>
@@ -104,22 +247,111 @@ class DocumentPageSplitter {
     /// </returns>
     public Document getDocumentOfPageRange(int startIndex, int endIndex) throws Exception {
         Document result = (Document) this.getDocument().deepClone(false);
-        for (Section section : (Iterable<Section>) this.pageNumberFinder.retrieveAllNodesOnPages(startIndex, endIndex, NodeType.SECTION)) {
+        for (Section section : (Iterable<Section>) this.pageNodeIndex.getNodesOnPages(startIndex, endIndex, NodeType.SECTION)) {
             result.appendChild(result.importNode(section, true));
         }
 
         return result;
     }
+
+    /// <summary>
+    /// Writes every page as a separate document to the specified sink as soon as the page is produced.
+    /// A page document is no longer referenced once it is written, so only one page document is held in memory
+    /// besides the source document.
+    /// </summary>
+    /// <param name="sink">
+    /// Receives the output stream of each page.
+    /// </param>
+    /// <param name="saveFormat">
+    /// A <see cref="SaveFormat"/> value the pages are saved in.
+    /// </param>
+    public void writePages(PageSink sink, int saveFormat) throws Exception {
+        int pageCount = this.pageNodeIndex.getPageCount();
+        for (int page = 1; page <= pageCount; page++) {
+            Document pageDoc = this.getDocumentOfPage(page);
+            OutputStream stream = sink.openPage(page);
+            try {
+                pageDoc.save(stream, saveFormat);
+            } finally {
+                sink.closePage(page, stream);
+            }
+        }
+    }
+}
+
+/// <summary>
+/// Receives the pages written by <see cref="DocumentPageSplitter.writePages"/>.
+/// </summary>
+interface PageSink {
+    /// <summary>
+    /// Returns the stream the specified page is saved to.
+    /// </summary>
+    /// <param name="pageIndex">
+    /// 1-based index of the page.
+    /// </param>
+    OutputStream openPage(int pageIndex) throws Exception;
+
+    /// <summary>
+    /// Called once the page has been saved to the stream returned by <see cref="openPage"/>, also if saving failed.
+    /// </summary>
+    void closePage(int pageIndex, OutputStream stream) throws Exception;
+}
+
+/// <summary>
+/// Writes every page as an entry of a zip archive.
+/// </summary>
+class ZipPageSink implements PageSink {
+    private final ZipOutputStream zipStream;
+    private final String entryNamePrefix;
+    private final String entryNameSuffix;
+
+    /// <summary>
+    /// Initializes a new instance of the <see cref="ZipPageSink"/> class.
+    /// The name of an entry is the prefix, the 1-based page index and the suffix, both taken as they are.
+    /// </summary>
+    /// <param name="zipStream">The archive the pages are written to. It is not closed by the sink.</param>
+    /// <param name="entryNamePrefix">The text of the entry name before the page index.</param>
+    /// <param name="entryNameSuffix">The text of the entry name after the page index.</param>
+    public ZipPageSink(ZipOutputStream zipStream, String entryNamePrefix, String entryNameSuffix) {
+        this.zipStream = zipStream;
+        this.entryNamePrefix = entryNamePrefix;
+        this.entryNameSuffix = entryNameSuffix;
+    }
+
+    public OutputStream openPage(int pageIndex) throws Exception {
+        this.zipStream.putNextEntry(new ZipEntry(this.entryNamePrefix + pageIndex + this.entryNameSuffix));
+
+        // The archive must stay open for the next entry even if the writer of the page closes its stream.
+        return new FilterOutputStream(this.zipStream) {
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    public void closePage(int pageIndex, OutputStream stream) throws Exception {
+        stream.flush();
+        this.zipStream.closeEntry();
+    }
 }
 
 class PageNumberFinder {
-    // Maps node to a start/end page numbers. This is used to override baseline page numbers provided by collector when document is split.
-    private Hashtable nodeStartPageLookup = new Hashtable();
-    private Hashtable nodeEndPageLookup = new Hashtable();
+    // Maps node to a start/end page numbers. Holds page numbers memoized from the collector as well as the ones which
+    // override them when the document is split.
+    private NodePageStore nodePageLookup = new NodePageStore();
     private LayoutCollector collector;
+    private LayoutEnumerator enumerator;
+    private boolean layoutInvalidated;
 
-    // Maps page number to a list of nodes found on that page.
-    private Hashtable reversePageLookup;
+    // How many characters of text not rendered as spans may be skipped when matching layout spans to run text.
+    private static final int MAX_SKIPPED_CHARS = 4096;
+
+    // Indexes the nodes found on each page. Built once after the document has been split.
+    private PageNodeIndex pageNodeIndex;
 
     /// <summary>
     /// Initializes a new instance of the <see cref="PageNumberFinder"/> class.
@@ -146,8 +378,14 @@ class PageNumberFinder {
     /// Page index.
     /// </returns>
     public int getPage(Node node) throws Exception {
-        return this.nodeStartPageLookup.containsKey(node) ?
-                (Integer) this.nodeStartPageLookup.get(node) : this.collector.getStartPageIndex(node);
+        int slot = this.nodePageLookup.slotOf(node);
+        int page = this.nodePageLookup.getStartPage(slot);
+        if (page == NodePageStore.UNKNOWN) {
+            page = this.collector.getStartPageIndex(node);
+            this.nodePageLookup.setStartPage(slot, page);
+        }
+
+        return page;
     }
 
     /// <summary>
@@ -160,9 +398,14 @@ class PageNumberFinder {
     /// Page index.
     /// </returns>
     public int getPageEnd(Node node) throws Exception {
-        return this.nodeEndPageLookup.containsKey(node) ?
-                (Integer) this.nodeEndPageLookup.get(node) :
-                this.collector.getEndPageIndex(node);
+        int slot = this.nodePageLookup.slotOf(node);
+        int page = this.nodePageLookup.getEndPage(slot);
+        if (page == NodePageStore.UNKNOWN) {
+            page = this.collector.getEndPageIndex(node);
+            this.nodePageLookup.setEndPage(slot, page);
+        }
+
+        return page;
     }
 
     /// <summary>
@@ -194,32 +437,15 @@ class PageNumberFinder {
     /// The <see cref="IList"/>.
     /// </returns>
     public ArrayList retrieveAllNodesOnPages(int startPage, int endPage, int nodeType) throws Exception {
-        if (startPage < 1 || startPage > this.getDocument().getPageCount()) {
-            throw new IllegalStateException("'startPage' is out of range");
-        }
-
-        if (endPage < 1 || endPage > this.getDocument().getPageCount() || endPage < startPage) {
-            throw new IllegalStateException("'endPage' is out of range");
-        }
+        return this.getPageNodeIndex().getNodesOnPages(startPage, endPage, nodeType);
+    }
 
+    /// <summary>
+    /// Gets the index of the nodes found on each page, building it on first use.
+    /// </summary>
+    public PageNodeIndex getPageNodeIndex() throws Exception {
         this.checkPageListsPopulated();
-        ArrayList pageNodes = new ArrayList();
-        for (int page = startPage; page <= endPage; page++) {
-            // Some pages can be empty.
-            if (!this.reversePageLookup.containsKey(page)) {
-                continue;
-            }
-
-            for (Node node : (Iterable<Node>) this.reversePageLookup.get(page)) {
-                if (node.getParentNode() != null
-                        && (nodeType == NodeType.ANY || node.getNodeType() == nodeType)
-                        && !pageNodes.contains(node)) {
-                    pageNodes.add(node);
-                }
-            }
-        }
-
-        return pageNodes;
+        return this.pageNodeIndex;
     }
 
     /// <summary>
@@ -227,13 +453,21 @@ class PageNumberFinder {
     /// but no longer appear across a page.
     /// </summary>
     public void splitNodesAcrossPages() throws Exception {
+        // The enumerator is created before any run is split, so it works with the layout the collector was filled from.
+        this.enumerator = new LayoutEnumerator(this.getDocument());
         for (Paragraph paragraph : (Iterable<Paragraph>) this.getDocument().getChildNodes(NodeType.PARAGRAPH, true)) {
             if (this.getPage(paragraph) != this.getPageEnd(paragraph)) {
-                this.splitRunsByWords(paragraph);
+                this.splitRunsByPage(paragraph);
             }
         }
 
-        this.clearCollector();
+        this.enumerator = null;
+
+        // Runs split at page breaks found in the layout get their page numbers from the first pass and every other
+        // node keeps its memoized page numbers, so the layout is only rebuilt if some run had to be split blindly.
+        if (this.layoutInvalidated) {
+            this.clearCollector();
+        }
 
         // Visit any composites which are possibly split across pages and split them into separate nodes.
         this.getDocument().accept(new SectionSplitter(this));
@@ -252,87 +486,485 @@ class PageNumberFinder {
     /// The end Page.
     /// </param>
     void addPageNumbersForNode(Node node, int startPage, int endPage) {
+        if (startPage <= 0 && endPage <= 0) {
+            return;
+        }
+
+        int slot = this.nodePageLookup.slotOf(node);
         if (startPage > 0) {
-            this.nodeStartPageLookup.put(node, startPage);
+            this.nodePageLookup.setStartPage(slot, startPage);
         }
 
         if (endPage > 0) {
-            this.nodeEndPageLookup.put(node, endPage);
+            this.nodePageLookup.setEndPage(slot, endPage);
         }
     }
 
-    private static boolean isHeaderFooterType(Node node) {
+    static boolean isHeaderFooterType(Node node) {
         return node.getNodeType() == NodeType.HEADER_FOOTER || node.getAncestor(NodeType.HEADER_FOOTER) != null;
     }
 
     private void checkPageListsPopulated() throws Exception {
-        if (this.reversePageLookup != null) {
+        if (this.pageNodeIndex != null) {
             return;
         }
 
-        this.reversePageLookup = new Hashtable();
-
-        // Add each node to a list which represent the nodes found on each page.
+        ArrayList<Node> nodes = new ArrayList<Node>();
         for (Node node : (Iterable<Node>) this.getDocument().getChildNodes(NodeType.ANY, true)) {
             // Headers/Footers follow sections. They are not split by themselves.
-            if (isHeaderFooterType(node)) {
-                continue;
+            if (!isHeaderFooterType(node)) {
+                nodes.add(node);
             }
+        }
 
-            int startPage = this.getPage(node);
-            int endPage = this.getPageEnd(node);
-            for (int page = startPage; page <= endPage; page++) {
-                if (!this.reversePageLookup.containsKey(page)) {
-                    this.reversePageLookup.put(page, new ArrayList());
+        int[] startPages = new int[nodes.size()];
+        int[] endPages = new int[nodes.size()];
+        for (int i = 0; i < startPages.length; i++) {
+            startPages[i] = this.getPage(nodes.get(i));
+            endPages[i] = this.getPageEnd(nodes.get(i));
+        }
+
+        this.pageNodeIndex = new PageNodeIndex(this.getDocument().getPageCount(), nodes, startPages, endPages);
+    }
+
+    private void splitRunsByPage(Paragraph paragraph) throws Exception {
+        Node[] runs = paragraph.getRuns().toArray();
+        int[] runStarts = new int[runs.length + 1];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < runs.length; i++) {
+            runStarts[i] = builder.length();
+            builder.append(runs[i].getText());
+        }
+        runStarts[runs.length] = builder.length();
+
+        PageBreaks breaks = this.findPageBreaks(paragraph, builder.toString());
+        if (breaks == null) {
+            // The layout of the paragraph could not be matched to its text, so fall back to splitting crossing runs by words.
+            // Pages of the resulting runs are unknown, so the layout has to be rebuilt afterwards.
+            for (Node run : runs) {
+                if (this.getPage(run) != this.getPageEnd(run)) {
+                    int[] offsets = findWordOffsets(run.getText());
+                    splitRun((Run) run, offsets);
+                    this.layoutInvalidated |= offsets.length > 0;
+                }
+            }
+
+            return;
+        }
+
+        // Both the runs and the page breaks are in text order, so each run is visited once.
+        int breakIndex = 0;
+        int pageAtRunStart = breaks.firstPage;
+        for (int i = 0; i < runs.length && breakIndex < breaks.count; i++) {
+            int first = breakIndex;
+            while (breakIndex < breaks.count && breaks.offsets[breakIndex] < runStarts[i + 1]) {
+                breakIndex++;
+            }
+
+            int[] localOffsets = new int[breakIndex - first];
+            int[] localPages = new int[breakIndex - first];
+            int count = 0;
+            for (int k = first; k < breakIndex; k++) {
+                int offset = breaks.offsets[k] - runStarts[i];
+                if (offset > 0) {
+                    localOffsets[count] = offset;
+                    localPages[count++] = breaks.pages[k];
+                } else {
+                    pageAtRunStart = breaks.pages[k];
                 }
+            }
 
-                ((ArrayList) this.reversePageLookup.get(page)).add(node);
+            if (count > 0) {
+                // The text is unchanged by splitting, so the pages found in the layout are carried over to the pieces.
+                Run[] pieces = splitRun((Run) runs[i], Arrays.copyOf(localOffsets, count));
+                this.addPageNumbersForNode(pieces[0], pageAtRunStart, pageAtRunStart);
+                for (int k = 1; k < pieces.length; k++) {
+                    this.addPageNumbersForNode(pieces[k], localPages[k - 1], localPages[k - 1]);
+                }
+                pageAtRunStart = localPages[count - 1];
             }
         }
     }
 
-    private void splitRunsByWords(Paragraph paragraph) throws Exception {
-        for (Run run : paragraph.getRuns()) {
-            if (this.getPage(run) == this.getPageEnd(run)) {
+    /// <summary>
+    /// Finds offsets in the text of the paragraph runs at which a new page starts.
+    /// The lines of the paragraph are walked backward from the paragraph mark and the text spans are matched
+    /// against the run text in a single forward pass.
+    /// </summary>
+    /// <returns>
+    /// Page breaks in text order or null if the paragraph has no layout entity or none of its spans match the run text.
+    /// </returns>
+    private PageBreaks findPageBreaks(Paragraph paragraph, String text) throws Exception {
+        Object entity = this.collector.getEntity(paragraph);
+        if (entity == null) {
+            return null;
+        }
+
+        this.enumerator.setCurrent(entity);
+        ArrayList<String> spanTexts = new ArrayList<String>();
+        ArrayList<Integer> spanPages = new ArrayList<Integer>();
+        while (this.movePreviousSpan()) {
+            // The mark of the previous paragraph, cell or row ends the lines of this paragraph.
+            if (isMarkerSpan(this.enumerator.getKind())) {
+                break;
+            }
+
+            if (this.enumerator.getKind().startsWith("TEXT") && this.enumerator.getText().length() > 0) {
+                spanTexts.add(this.enumerator.getText());
+                spanPages.add(this.enumerator.getPageIndex());
+            }
+        }
+
+        PageBreaks breaks = new PageBreaks(spanTexts.size());
+        int cursor = 0;
+        int previousPage = -1;
+        for (int i = spanTexts.size() - 1; i >= 0; i--) {
+            String spanText = spanTexts.get(i);
+            int position = findText(text, spanText, cursor);
+            if (position < 0) {
                 continue;
             }
 
-            this.splitRunByWords(run);
+            int page = spanPages.get(i);
+            if (previousPage == -1) {
+                breaks.firstPage = page;
+            } else if (page > previousPage) {
+                breaks.offsets[breaks.count] = position;
+                breaks.pages[breaks.count++] = page;
+            }
+
+            previousPage = page;
+            cursor = position + spanText.length();
+        }
+
+        return previousPage == -1 ? null : breaks;
+    }
+
+    /// <summary>
+    /// Moves the enumerator to the previous span in logical order, following lines across columns and pages.
+    /// </summary>
+    private boolean movePreviousSpan() throws Exception {
+        if (this.enumerator.movePrevious()) {
+            return true;
+        }
+
+        this.enumerator.moveParent();
+        while (this.enumerator.movePreviousLogical()) {
+            if (this.enumerator.moveLastChild()) {
+                return true;
+            }
         }
+
+        return false;
     }
 
-    private void splitRunByWords(Run run) {
-        String[] words = run.getText().split(" ");
-        List<String> list = Arrays.asList(words);
-        Collections.reverse(list);
-        String[] reversedWords = (String[]) list.toArray();
+    private static boolean isMarkerSpan(String kind) {
+        return "PARAGRAPH".equals(kind) || "CELL".equals(kind) || "ROW".equals(kind) || "SECTION".equals(kind);
+    }
 
-        for (String word : reversedWords) {
-            int pos = run.getText().length() - word.length() - 1;
-            if (pos > 1) {
-                splitRun(run, run.getText().length() - word.length() - 1);
+    /// <summary>
+    /// Finds the span text in the run text starting at the cursor. Text not rendered as spans, such as field codes,
+    /// may be skipped, but the search window is bounded so an unmatched span costs no more than the window.
+    /// </summary>
+    private static int findText(String text, String spanText, int cursor) {
+        int limit = Math.min(text.length() - spanText.length(), cursor + MAX_SKIPPED_CHARS);
+        for (int position = cursor; position <= limit; position++) {
+            if (text.startsWith(spanText, position)) {
+                return position;
             }
         }
+
+        return -1;
     }
 
     /// <summary>
-    /// Splits text of the specified run into two runs.
-    /// Inserts the new run just after the specified run.
+    /// Offsets in the run text of a paragraph at which a new page starts, with the number of that page.
     /// </summary>
-    private static Run splitRun(Run run, int position) {
-        Run afterRun = (Run) run.deepClone(true);
-        afterRun.setText(run.getText().substring(position));
-        run.setText(run.getText().substring(0, position));
-        run.getParentNode().insertAfter(afterRun, run);
-        return afterRun;
+    private static class PageBreaks {
+        final int[] offsets;
+        final int[] pages;
+        int count;
+        int firstPage;
+
+        PageBreaks(int capacity) {
+            this.offsets = new int[capacity];
+            this.pages = new int[capacity];
+        }
+    }
+
+    private static int[] findWordOffsets(String text) {
+        int[] offsets = new int[text.length()];
+        int count = 0;
+        for (int i = 2; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                offsets[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /// <summary>
+    /// Splits text of the specified run at the specified ascending offsets.
+    /// Inserts the new runs just after the specified run. Every clone copies only the text of its own piece.
+    /// </summary>
+    /// <returns>
+    /// The pieces in text order, starting with the specified run.
+    /// </returns>
+    private static Run[] splitRun(Run run, int[] offsets) {
+        Run[] pieces = new Run[offsets.length + 1];
+        pieces[0] = run;
+        if (offsets.length == 0) {
+            return pieces;
+        }
+
+        String text = run.getText();
+        int end = text.length();
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            run.setText(text.substring(offsets[i], end));
+            pieces[i + 1] = (Run) run.deepClone(true);
+            run.getParentNode().insertAfter(pieces[i + 1], run);
+            end = offsets[i];
+        }
+
+        run.setText(text.substring(0, end));
+        return pieces;
     }
 
     private void clearCollector() throws Exception {
         this.collector.clear();
         this.getDocument().updatePageLayout();
 
-        this.nodeStartPageLookup.clear();
-        this.nodeEndPageLookup.clear();
+        this.nodePageLookup.clear();
+    }
+}
+
+/// <summary>
+/// Identity-keyed open addressing map from a node to its start and end page numbers.
+/// Page numbers are kept in primitive arrays so neither keys nor values allocate per lookup.
+/// </summary>
+class NodePageStore {
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private Node[] keys = new Node[1024];
+    private int[] startPages = newPageArray(1024);
+    private int[] endPages = newPageArray(1024);
+    private int size;
+
+    /// <summary>
+    /// Returns the slot of the specified node, adding the node with unknown page numbers if it is not stored yet.
+    /// The slot stays valid until the next node is added or the store is cleared.
+    /// </summary>
+    public int slotOf(Node node) {
+        int slot = this.findSlot(this.keys, node);
+        if (this.keys[slot] == null) {
+            if ((this.size + 1) * 2 > this.keys.length) {
+                this.grow();
+                slot = this.findSlot(this.keys, node);
+            }
+
+            this.keys[slot] = node;
+            this.size++;
+        }
+
+        return slot;
+    }
+
+    public int getStartPage(int slot) {
+        return this.startPages[slot];
+    }
+
+    public int getEndPage(int slot) {
+        return this.endPages[slot];
+    }
+
+    public void setStartPage(int slot, int page) {
+        this.startPages[slot] = page;
+    }
+
+    public void setEndPage(int slot, int page) {
+        this.endPages[slot] = page;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        Arrays.fill(this.startPages, UNKNOWN);
+        Arrays.fill(this.endPages, UNKNOWN);
+        this.size = 0;
+    }
+
+    private int findSlot(Node[] table, Node node) {
+        int mask = table.length - 1;
+        int slot = mix(System.identityHashCode(node)) & mask;
+        while (table[slot] != null && table[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void grow() {
+        Node[] oldKeys = this.keys;
+        int[] oldStartPages = this.startPages;
+        int[] oldEndPages = this.endPages;
+
+        this.keys = new Node[oldKeys.length * 2];
+        this.startPages = newPageArray(this.keys.length);
+        this.endPages = newPageArray(this.keys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = this.findSlot(this.keys, oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.startPages[slot] = oldStartPages[i];
+                this.endPages[slot] = oldEndPages[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] newPageArray(int length) {
+        int[] pages = new int[length];
+        Arrays.fill(pages, UNKNOWN);
+        return pages;
+    }
+}
+
+/// <summary>
+/// Page-indexed view of the nodes of a split document. The page range of every node is kept in primitive arrays and
+/// each page holds the ordinals of its nodes in document order, so a page range is extracted in time proportional to
+/// the number of nodes found on it.
+/// </summary>
+class PageNodeIndex {
+    private final int pageCount;
+    private final Node[] nodes;
+    private final int[] nodeStartPages;
+    private final int[] nodeEndPages;
+
+    // Ordinals of the nodes found on each page, indexed by 1-based page number.
+    private final int[][] pageNodes;
+
+    /// <summary>
+    /// Initializes a new instance of the <see cref="PageNodeIndex"/> class.
+    /// </summary>
+    /// <param name="pageCount">Number of pages in the document.</param>
+    /// <param name="nodes">Nodes in document order.</param>
+    /// <param name="startPages">1-based start page of each node.</param>
+    /// <param name="endPages">1-based end page of each node.</param>
+    public PageNodeIndex(int pageCount, List<Node> nodes, int[] startPages, int[] endPages) {
+        int nodeCount = nodes.size();
+        this.pageCount = pageCount;
+        this.nodes = nodes.toArray(new Node[nodeCount]);
+        this.nodeStartPages = new int[nodeCount];
+        this.nodeEndPages = new int[nodeCount];
+
+        // First pass counts the nodes of each page, second pass fills the per page arrays.
+        int[] pageSizes = new int[pageCount + 2];
+        for (int i = 0; i < nodeCount; i++) {
+            // Nodes reported on page 0 are not on any page and stay out of the index. A range reaching outside
+            // the document is trimmed to its pages, which are the only pages it was ever listed on.
+            if (endPages[i] < 1) {
+                this.nodeStartPages[i] = 1;
+                this.nodeEndPages[i] = 0;
+                continue;
+            }
+
+            int startPage = Math.max(startPages[i], 1);
+            int endPage = Math.min(endPages[i], pageCount);
+            this.nodeStartPages[i] = startPage;
+            this.nodeEndPages[i] = endPage;
+            for (int page = startPage; page <= endPage; page++) {
+                pageSizes[page]++;
+            }
+        }
+
+        this.pageNodes = new int[pageCount + 1][];
+        for (int page = 1; page <= pageCount; page++) {
+            this.pageNodes[page] = new int[pageSizes[page]];
+            pageSizes[page] = 0;
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            for (int page = this.nodeStartPages[i]; page <= this.nodeEndPages[i]; page++) {
+                this.pageNodes[page][pageSizes[page]++] = i;
+            }
+        }
+    }
+
+    /// <summary>
+    /// Gets the number of pages covered by the index.
+    /// </summary>
+    public int getPageCount() {
+        return this.pageCount;
+    }
+
+    private PageNodeIndex(PageNodeIndex source, Node[] nodes) {
+        this.pageCount = source.pageCount;
+        this.nodes = nodes;
+        this.nodeStartPages = source.nodeStartPages;
+        this.nodeEndPages = source.nodeEndPages;
+        this.pageNodes = source.pageNodes;
+    }
+
+    /// <summary>
+    /// Returns an index with the same pages over a deep copy of the indexed document.
+    /// Nodes of the copy are matched to the indexed nodes by their position in document order.
+    /// </summary>
+    public PageNodeIndex forCopy(Document copy) {
+        Node[] copyNodes = new Node[this.nodes.length];
+        int ordinal = 0;
+        for (Node node : (Iterable<Node>) copy.getChildNodes(NodeType.ANY, true)) {
+            if (PageNumberFinder.isHeaderFooterType(node)) {
+                continue;
+            }
+
+            if (ordinal == copyNodes.length || node.getNodeType() != this.nodes[ordinal].getNodeType()) {
+                throw new IllegalStateException("The copy does not have the structure of the indexed document.");
+            }
+
+            copyNodes[ordinal++] = node;
+        }
+
+        if (ordinal != copyNodes.length) {
+            throw new IllegalStateException("The copy does not have the structure of the indexed document.");
+        }
+
+        return new PageNodeIndex(this, copyNodes);
+    }
+
+    /// <summary>
+    /// Returns nodes of the specified type found anywhere on the specified pages, in document order of each page.
+    /// A node spanning several pages of the range is returned once.
+    /// </summary>
+    public ArrayList getNodesOnPages(int startPage, int endPage, int nodeType) {
+        if (startPage < 1 || startPage > this.pageCount) {
+            throw new IllegalStateException("'startPage' is out of range");
+        }
+
+        if (endPage < 1 || endPage > this.pageCount || endPage < startPage) {
+            throw new IllegalStateException("'endPage' is out of range");
+        }
+
+        ArrayList pageNodes = new ArrayList();
+        for (int page = startPage; page <= endPage; page++) {
+            for (int ordinal : this.pageNodes[page]) {
+                // A node is reported on the first page of the range it appears on, so no lookup is needed to skip duplicates.
+                if (Math.max(this.nodeStartPages[ordinal], startPage) != page) {
+                    continue;
+                }
+
+                Node node = this.nodes[ordinal];
+                if (node.getParentNode() != null
+                        && (nodeType == NodeType.ANY || node.getNodeType() == nodeType)) {
+                    pageNodes.add(node);
+                }
+            }
+        }
+
+        return pageNodes;
     }
 }
 
@@ -0,0 +1,98 @@
+package com.aspose.words.examples.loading_saving;
+
+import com.aspose.words.*;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures time and heap allocation per page of {@link DocumentPageSplitter} on a generated document.
+ * Run with a large heap, e.g. -Xmx4g, and pass the number of paragraphs to generate as the first argument.
+ * The optional second argument sets the number of words per paragraph; values of 10000 and more produce the giant
+ * paragraphs whose runs cross several pages.
+ */
+public class PageSplitterBenchmark {
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int paragraphCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int wordsPerParagraph = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(paragraphCount, wordsPerParagraph, false);
+        }
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            runIteration(paragraphCount, wordsPerParagraph, true);
+        }
+    }
+
+    private static void runIteration(int paragraphCount, int wordsPerParagraph, boolean report) throws Exception {
+        Document doc = wordsPerParagraph > 0
+                ? createLongParagraphDocument(paragraphCount, wordsPerParagraph)
+                : createDocument(paragraphCount);
+
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+
+        DocumentPageSplitter splitter = new DocumentPageSplitter(doc);
+        int pageCount = doc.getPageCount();
+        for (int page = 1; page <= pageCount; page++) {
+            splitter.getDocumentOfPage(page);
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = allocatedBytes() - startBytes;
+        if (report) {
+            System.out.println(String.format("%d pages: %.3f ms/page, %d KB allocated/page",
+                    pageCount, elapsed / 1e6 / pageCount, allocated / 1024 / pageCount));
+        }
+    }
+
+    /**
+     * Builds a document of plain paragraphs interleaved with small tables, so both runs and composites cross pages.
+     */
+    private static Document createDocument(int paragraphCount) throws Exception {
+        Document doc = new Document();
+        DocumentBuilder builder = new DocumentBuilder(doc);
+        for (int i = 0; i < paragraphCount; i++) {
+            builder.writeln("Paragraph " + i + " of the generated benchmark document with enough text to wrap onto a second line of the page.");
+
+            if (i % 50 == 0) {
+                builder.startTable();
+                for (int row = 0; row < 5; row++) {
+                    builder.insertCell();
+                    builder.write("Row " + row);
+                    builder.insertCell();
+                    builder.write("Value " + i);
+                    builder.endRow();
+                }
+                builder.endTable();
+            }
+        }
+
+        return doc;
+    }
+
+    /**
+     * Builds a document of unformatted paragraphs, each written as a single run of the specified number of words.
+     */
+    private static Document createLongParagraphDocument(int paragraphCount, int wordsPerParagraph) throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordsPerParagraph; i++) {
+            text.append("word").append(i % 100).append(' ');
+        }
+
+        Document doc = new Document();
+        DocumentBuilder builder = new DocumentBuilder(doc);
+        for (int i = 0; i < paragraphCount; i++) {
+            builder.writeln(text.toString());
+        }
+
+        return doc;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
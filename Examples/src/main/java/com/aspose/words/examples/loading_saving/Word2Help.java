@@ -12,8 +12,18 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
+import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -62,6 +72,8 @@ public class Word2Help {
 
         TopicCollection topics = new TopicCollection(dataDir, fixUrl);
         topics.addFromDir(dataDir);
+
+        // The topics are saved in parallel, content.xml is written once all of them are done.
         topics.writeHtml(outDir);
         topics.writeContentXml(outDir);
         //ExEnd:Word2Help
@@ -241,7 +253,7 @@ class RegularExpressions {
     /**
      * Regular expression specifying html title (framing tags excluded).
      */
-    public static Pattern getHtmlTitle() throws Exception {
+    public static synchronized Pattern getHtmlTitle() throws Exception {
         if (gHtmlTitle == null) {
             gHtmlTitle = Pattern.compile(HTML_TITLE_PATTERN,
                     Pattern.CASE_INSENSITIVE);
@@ -252,7 +264,7 @@ class RegularExpressions {
     /**
      * Regular expression specifying html head.
      */
-    public static Pattern getHtmlHead() throws Exception {
+    public static synchronized Pattern getHtmlHead() throws Exception {
         if (gHtmlHead == null) {
             gHtmlHead = Pattern.compile(HTML_HEAD_PATTERN,
                     Pattern.CASE_INSENSITIVE);
@@ -263,7 +275,7 @@ class RegularExpressions {
     /**
      * Regular expression specifying space right after div keyword in the first div declaration of html body.
      */
-    public static Pattern getHtmlBodyDivStart() throws Exception {
+    public static synchronized Pattern getHtmlBodyDivStart() throws Exception {
         if (gHtmlBodyDivStart == null) {
             gHtmlBodyDivStart = Pattern.compile(HTML_BODY_DIV_START_PATTERN,
                     Pattern.CASE_INSENSITIVE);
@@ -290,8 +302,11 @@ class RegularExpressions {
 class TopicWord2Help {
     /**
      * Creates a topic.
+     *
+     * @param bookmarkFileNames The topic file names of the bookmarks of the source document, as returned by
+     *                          getBookmarkFileNames. The map is shared by all topics of the document.
      */
-    public TopicWord2Help(Section section, String fixUrl) throws Exception {
+    public TopicWord2Help(Section section, String fixUrl, Map<String, String> bookmarkFileNames) throws Exception {
         mTopicDoc = new Document();
         mTopicDoc.appendChild(mTopicDoc.importNode(section, true, ImportFormatMode.KEEP_SOURCE_FORMATTING));
         mTopicDoc.getFirstSection().remove();
@@ -313,14 +328,37 @@ class TopicWord2Help {
 
         mTopicDoc.getBuiltInDocumentProperties().setTitle(mTitle);
 
-        fixHyperlinks(section.getDocument(), fixUrl);
+        fixHyperlinks(bookmarkFileNames, fixUrl);
+    }
+
+    /**
+     * Maps the name of every bookmark in the document to the file name of the topic its paragraph starts.
+     * Bookmark names are case-insensitive, the keys are upper case. Bookmarks outside any paragraph are reported and skipped.
+     */
+    public static Map<String, String> getBookmarkFileNames(Document doc) throws Exception {
+        HashMap<String, String> fileNames = new HashMap<String, String>();
+        for (Bookmark bmk : doc.getRange().getBookmarks()) {
+            // We have to follow the bookmark to get the text of the topic heading paragraph
+            // in order to be able to build the proper filename of the topic file.
+            // The bookmark can also start inside an inline node of the paragraph, such as a smart tag.
+            Node paragraph = bmk.getBookmarkStart().getAncestor(NodeType.PARAGRAPH);
+            if (paragraph == null) {
+                System.out.println(MessageFormat.format("Skipping the bookmark {0}, it does not start in a paragraph.", bmk.getName()));
+                continue;
+            }
+
+            String topicName = paragraph.getText().trim();
+            fileNames.put(bmk.getName().toUpperCase(Locale.ROOT), headingToFileName(topicName) + ".html");
+        }
+
+        return fileNames;
     }
 
     private static void throwTopicException(String message, Section section) throws Exception {
         throw new Exception(message + " Section text: " + section.getBody().toString(SaveFormat.TEXT).substring(0, 50));
     }
 
-    private void fixHyperlinks(DocumentBase originalDoc, String fixUrl) throws Exception {
+    private void fixHyperlinks(Map<String, String> bookmarkFileNames, String fixUrl) throws Exception {
         if (fixUrl.endsWith("/"))
             fixUrl = fixUrl.substring(0, fixUrl.length() - 1);
 
@@ -336,19 +374,14 @@ class TopicWord2Help {
                 // It causes MS Word to auto generate the bookmark name.
                 String bmkName = hyperlink.getTarget();
 
-                // But we have to follow the bookmark to get the text of the topic heading paragraph
-                // in order to be able to build the proper filename of the topic file.
-                Bookmark bmk = originalDoc.getRange().getBookmarks().get(bmkName);
+                // But we have to follow the bookmark to the topic heading paragraph to get the file name
+                // of the topic. The file names of all bookmarks are looked up once per source document.
+                String fileName = bookmarkFileNames.get(bmkName.toUpperCase(Locale.ROOT));
 
-                // String test1 = MessageFormat.format("Found a link to a bookmark, but cannot locate the bookmark. Name:{0}.", bmkName);
-
-                if (bmk == null)
+                if (fileName == null)
                     throw new Exception(MessageFormat.format("Found a link to a bookmark, but cannot locate the bookmark. Name:{0}.", bmkName));
 
-                Paragraph para = (Paragraph) bmk.getBookmarkStart().getParentNode();
-                String topicName = para.getText().trim();
-
-                hyperlink.setTarget(headingToFileName(topicName) + ".html");
+                hyperlink.setTarget(fileName);
                 hyperlink.setLocal(false);
             } else {
                 // We "fix" URL like this:
@@ -373,45 +406,111 @@ class TopicWord2Help {
         // Disable headers and footers.
         saveOptions.setExportHeadersFootersMode(ExportHeadersFootersMode.NONE);
 
-        // Export the document to HTML.
-        mTopicDoc.save(fileName, saveOptions);
+        // The HTML is exported and decoded with the same explicit encoding.
+        saveOptions.setEncoding(HTML_ENCODING);
+
+        // Images are still written next to the topic file under the names a file save would give them.
+        // With the "." alias the HTML refers to them by file name only, without a path, as it did when saving to a file.
+        final String imageBaseName = getFileName().substring(0, getFileName().length() - ".html".length());
+        saveOptions.setImagesFolder(outDir);
+        saveOptions.setImagesFolderAlias(".");
+        saveOptions.setImageSavingCallback(new IImageSavingCallback() {
+            public void imageSaving(ImageSavingArgs args) throws Exception {
+                // Replace the base name of the generated "name.001.png" style file name.
+                String imageFileName = args.getImageFileName();
+                int counterStart = imageFileName.lastIndexOf('.', imageFileName.lastIndexOf('.') - 1);
+                if (counterStart >= 0)
+                    args.setImageFileName(imageBaseName + imageFileName.substring(counterStart));
+            }
+        });
 
-        // We need to modify the HTML string, read HTML back.
-        String html;
-        FileInputStream reader = null;
+        // Export the document to HTML in memory, we need to modify the HTML string before it is written.
+        ByteArrayOutputStream htmlStream = new ByteArrayOutputStream();
+        mTopicDoc.save(htmlStream, saveOptions);
+        String html = htmlStream.toString(HTML_ENCODING.name());
+
+        // Builds the HTML <head> element.
+        String header = htmlHeader.replaceFirst(RegularExpressions.getHtmlTitle().pattern(), mTitle);
+
+        String banner = htmlBanner.replace("###TOPIC_NAME###", mTitle);
+
+        Writer writer = null;
 
         try {
-            reader = new FileInputStream(fileName);
-            byte[] fileBytes = new byte[reader.available()];
-            reader.read(fileBytes);
-            html = new String(fileBytes);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), HTML_ENCODING));
+            writeModifiedHtml(writer, html, header, banner, htmlFooter);
         } finally {
-            if (reader != null) reader.close();
+            if (writer != null) writer.close();
         }
+    }
 
-        // Builds the HTML <head> element.
-        String header = htmlHeader.replaceFirst(RegularExpressions.getHtmlTitle().pattern(), mTitle);
+    /**
+     * Writes the HTML applying the new <head> element, the id of the first div of the body, the standard banner
+     * and the standard footer in a single pass over the HTML string. The result is the same as applying them one
+     * after another with replaceFirst and replace, without building a modified copy of the HTML for each of them.
+     * Like replaceFirst with the pattern strings, the head and the div are matched case-sensitively.
+     */
+    private static void writeModifiedHtml(Writer writer, String html, String header, String banner, String footer) throws Exception {
+        // The standard footer is added to the closing body tag of the banner as well.
+        String bodyStart = BODY_START_TAG + banner.replace(BODY_END_TAG, footer + BODY_END_TAG);
+        String bodyEnd = footer + BODY_END_TAG;
 
-        // Applies the new <head> element instead of the original one.
-        html = html.replaceFirst(RegularExpressions.getHtmlHead().pattern(), header);
-        html = html.replaceFirst(RegularExpressions.getHtmlBodyDivStart().pattern(), " id=\"nstext\"");
+        int pos = 0;
 
-        String banner = htmlBanner.replace("###TOPIC_NAME###", mTitle);
+        // Applies the new <head> element instead of the original one.
+        Matcher head = Pattern.compile(RegularExpressions.getHtmlHead().pattern()).matcher(html);
+        if (head.find()) {
+            writeReplacingBodyTags(writer, html, pos, head.start(), bodyStart, bodyEnd);
+            String newHead = expandReplacement(head, header);
+            writeReplacingBodyTags(writer, newHead, 0, newHead.length(), bodyStart, bodyEnd);
+            pos = head.end();
+        }
 
-        // Add the standard banner.
-        html = html.replace("<body>", "<body>" + banner);
+        Matcher bodyDivStart = Pattern.compile(RegularExpressions.getHtmlBodyDivStart().pattern()).matcher(html);
+        if (bodyDivStart.find(pos)) {
+            writeReplacingBodyTags(writer, html, pos, bodyDivStart.start(), bodyStart, bodyEnd);
+            writer.write(" id=\"nstext\"");
+            pos = bodyDivStart.end();
+        }
 
-        // Add the standard footer.
-        html = html.replace("</body>", htmlFooter + "</body>");
+        writeReplacingBodyTags(writer, html, pos, html.length(), bodyStart, bodyEnd);
+    }
 
-        FileOutputStream writer = null;
+    /**
+     * Writes the specified part of the text replacing every <body> and </body> tag.
+     */
+    private static void writeReplacingBodyTags(Writer writer, String text, int start, int end, String bodyStart, String bodyEnd) throws Exception {
+        int pos = start;
+        for (int i = text.indexOf('<', start); (i >= 0) && (i < end); i = text.indexOf('<', i + 1)) {
+            String replacement;
+            int tagLength;
+            if (text.startsWith(BODY_START_TAG, i) && (i + BODY_START_TAG.length() <= end)) {
+                replacement = bodyStart;
+                tagLength = BODY_START_TAG.length();
+            } else if (text.startsWith(BODY_END_TAG, i) && (i + BODY_END_TAG.length() <= end)) {
+                replacement = bodyEnd;
+                tagLength = BODY_END_TAG.length();
+            } else {
+                continue;
+            }
 
-        try {
-            writer = new FileOutputStream(fileName);
-            writer.write(html.getBytes());
-        } finally {
-            if (writer != null) writer.close();
+            writer.write(text, pos, i - pos);
+            writer.write(replacement);
+            pos = i + tagLength;
+            i = pos - 1;
         }
+
+        writer.write(text, pos, end - pos);
+    }
+
+    /**
+     * Returns the replacement of the current match the way replaceFirst would apply it, with group references expanded.
+     */
+    private static String expandReplacement(Matcher match, String replacement) throws Exception {
+        // The matcher appends the text preceding the match first, which is skipped.
+        StringBuffer buffer = new StringBuffer();
+        match.appendReplacement(buffer, replacement);
+        return buffer.substring(match.start());
     }
 
     /**
@@ -458,6 +557,10 @@ class TopicWord2Help {
     private final Document mTopicDoc;
     private final String mTitle;
     private final int mHeadingLevel;
+
+    private static final Charset HTML_ENCODING = Charset.forName("UTF-8");
+    private static final String BODY_START_TAG = "<body>";
+    private static final String BODY_END_TAG = "</body>";
 }
 //ExEnd:TopicWord2Help
 //ExStart:TopicCollection
@@ -475,8 +578,20 @@ class TopicCollection {
      *                         This allows turning some absolute URLS into relative ones.
      */
     public TopicCollection(String htmlTemplatesDir, String fixUrl) throws Exception {
+        this(htmlTemplatesDir, fixUrl, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param htmlTemplatesDir The directory that contains header.html, banner.html and footer.html files.
+     * @param fixUrl           The url that will be removed from any hyperlinks that start with this url.
+     * @param threadCount      The number of documents loaded and topics saved at the same time.
+     */
+    public TopicCollection(String htmlTemplatesDir, String fixUrl, int threadCount) throws Exception {
         mTopics = new ArrayList();
         mFixUrl = fixUrl;
+        mThreadCount = threadCount;
         mHtmlHeader = readFile(htmlTemplatesDir + "header.html");
         mHtmlBanner = readFile(htmlTemplatesDir + "banner.html");
         mHtmlFooter = readFile(htmlTemplatesDir + "footer.html");
@@ -485,6 +600,7 @@ class TopicCollection {
     /**
      * Processes all DOC files found in the specified directory.
      * Loads and splits each document into separate topics.
+     * The documents are loaded in parallel, the topics are added in the order of the files.
      */
     public void addFromDir(String dirName) throws Exception {
         FilenameFilter fileFilter = new FilenameFilter() {
@@ -494,26 +610,54 @@ class TopicCollection {
             }
         };
 
-        for (File filename : new File(dirName).listFiles(fileFilter))
-            addFromFile(filename.getAbsolutePath());
+        ExecutorService executor = Executors.newFixedThreadPool(mThreadCount);
+        try {
+            ArrayList<Future<List<TopicWord2Help>>> files = new ArrayList<Future<List<TopicWord2Help>>>();
+            for (File filename : new File(dirName).listFiles(fileFilter)) {
+                final String fileName = filename.getAbsolutePath();
+                files.add(executor.submit(new Callable<List<TopicWord2Help>>() {
+                    public List<TopicWord2Help> call() throws Exception {
+                        return loadTopics(fileName);
+                    }
+                }));
+            }
+
+            for (List<TopicWord2Help> topics : waitForAll(files))
+                mTopics.addAll(topics);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     /**
      * Processes a specified DOC file. Loads and splits into topics.
      */
     public void addFromFile(String fileName) throws Exception {
-        Document doc = new Document(fileName);
-        insertTopicSections(doc);
-        addTopics(doc);
+        mTopics.addAll(loadTopics(fileName));
     }
 
     /**
      * Saves all topics as HTML files.
+     * Every topic has its own document, so the topics are saved in parallel.
      */
-    public void writeHtml(String outDir) throws Exception {
-        for (TopicWord2Help topic : (Iterable<TopicWord2Help>) mTopics) {
-            if (!topic.isHeadingOnly())
-                topic.writeHtml(mHtmlHeader, mHtmlBanner, mHtmlFooter, outDir);
+    public void writeHtml(final String outDir) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(mThreadCount);
+        try {
+            ArrayList<Future<Void>> topics = new ArrayList<Future<Void>>();
+            for (final TopicWord2Help topic : (Iterable<TopicWord2Help>) mTopics) {
+                if (!topic.isHeadingOnly()) {
+                    topics.add(executor.submit(new Callable<Void>() {
+                        public Void call() throws Exception {
+                            topic.writeHtml(mHtmlHeader, mHtmlBanner, mHtmlFooter, outDir);
+                            return null;
+                        }
+                    }));
+                }
+            }
+
+            waitForAll(topics);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -622,18 +766,31 @@ class TopicCollection {
     }
 
     /**
-     * Goes through the sections in the document and adds them as topics to the collection.
+     * Loads a DOC file and splits it into topics.
      */
-    private void addTopics(Document doc) throws Exception {
+    private List<TopicWord2Help> loadTopics(String fileName) throws Exception {
+        Document doc = new Document(fileName);
+        insertTopicSections(doc);
+        return createTopics(doc);
+    }
+
+    /**
+     * Goes through the sections in the document and creates a topic for each of them.
+     */
+    private List<TopicWord2Help> createTopics(Document doc) throws Exception {
+        ArrayList<TopicWord2Help> topics = new ArrayList<TopicWord2Help>();
+        Map<String, String> bookmarkFileNames = TopicWord2Help.getBookmarkFileNames(doc);
         for (Section section : doc.getSections()) {
             try {
-                TopicWord2Help topic = new TopicWord2Help(section, mFixUrl);
-                mTopics.add(topic);
+                TopicWord2Help topic = new TopicWord2Help(section, mFixUrl, bookmarkFileNames);
+                topics.add(topic);
             } catch (Exception e) {
                 // If one topic fails, we continue with others.
                 System.out.println(e.getMessage());
             }
         }
+
+        return topics;
     }
 
     private static Element writeBookStart(Element root, TopicWord2Help topic) throws Exception {
@@ -656,6 +813,25 @@ class TopicCollection {
         item.setAttribute("href", href);
     }
 
+    /**
+     * Waits for the tasks in the order they were submitted and returns their results.
+     * If a task fails, the remaining tasks are cancelled and its exception is rethrown.
+     */
+    private static <T> List<T> waitForAll(List<Future<T>> futures) throws Exception {
+        ArrayList<T> results = new ArrayList<T>(futures.size());
+        try {
+            for (Future<T> future : futures)
+                results.add(future.get());
+        } catch (ExecutionException e) {
+            for (Future<T> future : futures)
+                future.cancel(true);
+
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+
+        return results;
+    }
+
     private static String readFile(String fileName) throws Exception {
         FileInputStream reader = null;
         try {
@@ -676,6 +852,7 @@ class TopicCollection {
     private final String mHtmlHeader;
     private final String mHtmlBanner;
     private final String mHtmlFooter;
+    private final int mThreadCount;
 
     /**
      * Specifies the maximum Heading X number.
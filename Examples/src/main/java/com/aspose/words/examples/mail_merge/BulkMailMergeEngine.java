@@ -0,0 +1,261 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.Document;
+
+import java.sql.ResultSet;
+import java.text.MessageFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+//ExStart:
+
+/**
+ * Produces one document per record of a ResultSet by merging a template in parallel.
+ * <p>
+ * The calling thread reads the rows into a bounded queue, so no more than the queue capacity of rows is held in
+ * memory, while the worker threads take rows from the queue, clone the template, execute mail merge and save the
+ * result. Every worker clones the template once into a private copy and clones each record document from that copy,
+ * because a Document must not be accessed by several threads at once.
+ */
+public class BulkMailMergeEngine {
+    /**
+     * Returns the file name a merged record is saved to.
+     */
+    public interface OutputNamer {
+        String getFileName(long recordIndex, String[] fieldNames, Object[] values) throws Exception;
+    }
+
+    /**
+     * Decides what happens when merging or saving a record fails.
+     */
+    public interface ErrorHandler {
+        /**
+         * @return true to skip the record and continue, false to stop the whole run and rethrow the exception.
+         */
+        boolean handleError(long recordIndex, Object[] values, Exception e);
+    }
+
+    /**
+     * Creates a new engine.
+     *
+     * @param template      The template merged for every record. It is not modified.
+     * @param workerCount   Number of threads merging and saving documents.
+     * @param queueCapacity Maximum number of rows read ahead of the workers.
+     */
+    public BulkMailMergeEngine(Document template, int workerCount, int queueCapacity) {
+        mTemplate = template;
+        mWorkerCount = workerCount;
+        mQueueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the naming scheme of the output documents. Either this or setOutputPattern must be called before execute.
+     */
+    public void setOutputNamer(OutputNamer value) {
+        mOutputNamer = value;
+    }
+
+    /**
+     * Names the output documents with a MessageFormat pattern whose only argument is the 1-based record index,
+     * e.g. "TestFile Out {0,number,#}.doc".
+     */
+    public void setOutputPattern(final String pattern) {
+        mOutputNamer = new OutputNamer() {
+            public String getFileName(long recordIndex, String[] fieldNames, Object[] values) {
+                return MessageFormat.format(pattern, recordIndex);
+            }
+        };
+    }
+
+    /**
+     * Sets how failed records are handled. By default the first failure stops the run.
+     */
+    public void setErrorHandler(ErrorHandler value) {
+        mErrorHandler = value;
+    }
+
+    /**
+     * Merges and saves a document for every remaining row of the ResultSet.
+     *
+     * @return The number of documents saved.
+     */
+    public long execute(ResultSet rs) throws Exception {
+        if (mOutputNamer == null) {
+            throw new IllegalStateException("The naming scheme of the output documents is not set.");
+        }
+
+        ResultSetRowAdapter rowAdapter = new ResultSetRowAdapter(rs);
+        final String[] fieldNames = rowAdapter.getFieldNames();
+
+        // Every run has a queue and failure of its own, so a failed run does not affect the next one.
+        final MergeRun run = new MergeRun(mQueueCapacity, mWorkerCount);
+        ExecutorService workers = Executors.newFixedThreadPool(mWorkerCount);
+        boolean isProduced = false;
+        try {
+            for (int i = 0; i < mWorkerCount; i++) {
+                workers.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            runWorker(run, fieldNames);
+                        } catch (RuntimeException e) {
+                            // E.g. thrown by the error handler.
+                            run.fail(e);
+                        } finally {
+                            run.mLiveWorkers.decrementAndGet();
+                        }
+                    }
+                });
+            }
+
+            long recordIndex = 0;
+            while (rs.next()) {
+                // Queued rows outlive the current row, so each gets an array of its own.
+                if (!putRow(run, new Row(++recordIndex, rowAdapter.readRow(new Object[fieldNames.length])))) {
+                    break;
+                }
+            }
+
+            isProduced = true;
+        } finally {
+            if (isProduced) {
+                // One end marker per worker, so every worker leaves its loop once the queue is drained. Workers that
+                // stopped early take no marker, so sending stops once no worker is left, even if the queue is full.
+                int endMarkerCount = 0;
+                while (endMarkerCount < mWorkerCount && run.mLiveWorkers.get() > 0) {
+                    if (run.mQueue.offer(END_OF_DATA, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        endMarkerCount++;
+                    }
+                }
+
+                workers.shutdown();
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } else {
+                // Reading the rows failed, stop the workers without waiting for the queued rows.
+                workers.shutdownNow();
+            }
+        }
+
+        if (run.mFailure.get() != null) {
+            throw run.mFailure.get();
+        }
+
+        return run.mSavedCount.get();
+    }
+
+    private void runWorker(MergeRun run, String[] fieldNames) {
+        Document template;
+        try {
+            synchronized (mTemplate) {
+                template = (Document) mTemplate.deepClone(true);
+            }
+        } catch (Exception e) {
+            run.fail(e);
+            return;
+        }
+
+        while (true) {
+            Row row = takeRow(run);
+            if (row == END_OF_DATA) {
+                return;
+            }
+
+            // Once the run has failed the remaining rows are only drained.
+            if (run.mFailure.get() != null) {
+                continue;
+            }
+
+            try {
+                Document dstDoc = (Document) template.deepClone(true);
+                dstDoc.getMailMerge().execute(fieldNames, row.mValues);
+                dstDoc.save(mOutputNamer.getFileName(row.mIndex, fieldNames, row.mValues));
+                run.mSavedCount.incrementAndGet();
+            } catch (Exception e) {
+                if (mErrorHandler == null || !mErrorHandler.handleError(row.mIndex, row.mValues, e)) {
+                    run.fail(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the row, waiting while the queue is full.
+     *
+     * @return false if the run has failed or no worker is left to take the row, so reading should stop.
+     */
+    private static boolean putRow(MergeRun run, Row row) throws InterruptedException {
+        while (run.mFailure.get() == null) {
+            if (run.mLiveWorkers.get() == 0) {
+                run.fail(new IllegalStateException("All workers stopped before the last record was merged."));
+                return false;
+            }
+
+            if (run.mQueue.offer(row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Row takeRow(MergeRun run) {
+        try {
+            return run.mQueue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+            return END_OF_DATA;
+        }
+    }
+
+    /**
+     * The state shared by the reading thread and the workers during one execute call.
+     */
+    private static class MergeRun {
+        MergeRun(int queueCapacity, int workerCount) {
+            mQueue = new ArrayBlockingQueue<Row>(queueCapacity);
+            mLiveWorkers = new AtomicInteger(workerCount);
+        }
+
+        void fail(Exception e) {
+            mFailure.compareAndSet(null, e);
+        }
+
+        private final BlockingQueue<Row> mQueue;
+        private final AtomicInteger mLiveWorkers;
+        private final AtomicLong mSavedCount = new AtomicLong();
+        private final AtomicReference<Exception> mFailure = new AtomicReference<Exception>();
+    }
+
+    /**
+     * A record read from the ResultSet.
+     */
+    private static class Row {
+        Row(long index, Object[] values) {
+            mIndex = index;
+            mValues = values;
+        }
+
+        private final long mIndex;
+        private final Object[] mValues;
+    }
+
+    private static final Row END_OF_DATA = new Row(0, null);
+
+    /**
+     * How long the reading thread waits for room in the queue before checking again whether the run has failed.
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final Document mTemplate;
+    private final int mWorkerCount;
+    private final int mQueueCapacity;
+    private OutputNamer mOutputNamer;
+    private ErrorHandler mErrorHandler;
+}
+//ExEnd:
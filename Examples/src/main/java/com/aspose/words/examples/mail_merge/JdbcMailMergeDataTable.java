@@ -0,0 +1,340 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.ref.Ref;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+
+//ExStart:
+
+/**
+ * A custom mail merge data source that reads records from a live JDBC ResultSet while the mail merge runs, instead
+ * of copying the query result into a DataTable or CachedRowSet first. Only the current row is held in memory, so
+ * queries returning millions of rows are merged in constant memory.
+ * <p>
+ * Nested regions are served by a merge join: the child table is a second cursor, and both cursors must be sorted in
+ * ascending order of their key. When the mail merge asks for the children of a parent record, the child cursor is
+ * advanced to the first row with a matching key and the nested region reads rows until the key changes. Each cursor
+ * is read exactly once from start to end and no query is executed per parent record.
+ * <p>
+ * The keys are compared in Java, so the database must sort them in the same order. This holds for numeric and date
+ * keys. Character keys must be sorted by a binary collation, because a case insensitive or linguistic collation of
+ * the database orders them differently than String.compareTo. Use the binary collation of your database in the
+ * ORDER BY clause, e.g. COLLATE "C" on PostgreSQL or COLLATE Latin1_General_BIN2 on SQL Server. Keys found out of
+ * order while reading throw an IllegalStateException instead of silently skipping child rows.
+ * <p>
+ * Records are read forward only. Field names are matched against the column names ignoring case.
+ */
+public class JdbcMailMergeDataTable implements IMailMergeDataSource {
+    /**
+     * Creates a data source which reads the records of the table from an open ResultSet. The ResultSet is closed
+     * when the last record has been read.
+     *
+     * @param resultSet The query result to merge.
+     * @param tableName The name of the region the records are merged into.
+     */
+    public JdbcMailMergeDataTable(ResultSet resultSet, String tableName) throws SQLException {
+        this(new JdbcCursor(resultSet, false), tableName);
+    }
+
+    /**
+     * Executes the query with a forward only, read only statement and creates a data source reading its result.
+     * The statement is closed when the last record has been read.
+     * <p>
+     * The fetch size is the number of rows the driver transfers from the database at a time. Some drivers only
+     * stream rows when additional conditions hold, for example PostgreSQL requires auto-commit to be disabled on
+     * the connection and MySQL requires a fetch size of Integer.MIN_VALUE.
+     *
+     * @param connection The connection to execute the query with.
+     * @param query      The query which returns the records.
+     * @param tableName  The name of the region the records are merged into.
+     * @param fetchSize  The number of rows to fetch from the database at a time.
+     */
+    public static JdbcMailMergeDataTable executeQuery(Connection connection, String query, String tableName, int fetchSize) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+            ResultSet resultSet = statement.executeQuery(query);
+            resultSet.setFetchSize(fetchSize);
+            return new JdbcMailMergeDataTable(new JdbcCursor(resultSet, true), tableName);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    private JdbcMailMergeDataTable(JdbcCursor cursor, String tableName) {
+        mCursor = cursor;
+        mTableName = tableName;
+        mChildTables = new HashMap<String, ChildTable>();
+        mIsChild = false;
+        mParentKey = null;
+        mChildKeyColumn = 0;
+    }
+
+    /**
+     * Private constructor that is called by getChildDataSource to read the rows of one parent record.
+     */
+    private JdbcMailMergeDataTable(ChildTable child, Object parentKey) {
+        mCursor = child.mTable.mCursor;
+        mTableName = child.mTable.mTableName;
+        mChildTables = child.mTable.mChildTables;
+        mIsChild = true;
+        mParentKey = parentKey;
+        mChildKeyColumn = child.mChildKeyColumn;
+    }
+
+    /**
+     * Adds a table which is merged into a region nested in the region of this table. Both queries must be sorted in
+     * ascending order of their key, e.g. with ORDER BY on the key columns.
+     *
+     * @param childTable     The child table. Child tables of its own are merged into the regions nested in its region.
+     * @param parentKeyField The name of the column of this table which identifies the parent record.
+     * @param childKeyField  The name of the column of the child table which refers to the parent record.
+     */
+    public void addChildTable(JdbcMailMergeDataTable childTable, String parentKeyField, String childKeyField) throws SQLException {
+        int parentKeyColumn = mCursor.getColumnIndex(parentKeyField);
+        int childKeyColumn = childTable.mCursor.getColumnIndex(childKeyField);
+        if (parentKeyColumn < 0 || childKeyColumn < 0) {
+            throw new IllegalArgumentException("The key column is not found in the query result.");
+        }
+
+        mChildTables.put(childTable.getTableName().toUpperCase(Locale.ENGLISH), new ChildTable(childTable, parentKeyColumn, childKeyColumn));
+    }
+
+    /**
+     * The name of the data source. Used by Aspose.Words only when executing
+     * mail merge with repeatable regions.
+     */
+    public String getTableName() {
+        return mTableName;
+    }
+
+    /**
+     * Aspose.Words calls this method to get a value for every data field.
+     */
+    public boolean getValue(String fieldName, Ref<Object> fieldValue) {
+        int column = mCursor.getColumnIndex(fieldName);
+        if (column < 0 || !mCursor.hasRow()) {
+            // Field does not exist in the data source, return false.
+            // No value will be merged for this field and it is left over in the document.
+            return false;
+        }
+
+        fieldValue.set(mCursor.getValue(column));
+        return true;
+    }
+
+    /**
+     * Moves to the next row of the cursor. A child table stops at the first row which belongs to another parent
+     * and leaves it unread for the next parent. The child table of a parent with a null key is empty.
+     */
+    public boolean moveNext() throws SQLException {
+        if (mIsEof) {
+            return false;
+        }
+
+        if (mIsChild && mParentKey == null) {
+            // As in an SQL join, a parent without a key has no child rows, not even the child rows without a key.
+            // The child cursor is not moved, so its rows are left for the next parents.
+            mIsEof = true;
+            return false;
+        }
+
+        if (!mIsChild) {
+            mCursor.next();
+        } else if (!mIsStarted) {
+            mIsStarted = true;
+            // Skip the rows of parents which had no region in the document or were not merged completely.
+            mCursor.start();
+            while (mCursor.hasRow() && compareKeys(mCursor.getValue(mChildKeyColumn), mParentKey) < 0) {
+                nextChildRow();
+            }
+        } else {
+            nextChildRow();
+        }
+
+        mIsEof = !mCursor.hasRow() || (mIsChild && compareKeys(mCursor.getValue(mChildKeyColumn), mParentKey) != 0);
+        return !mIsEof;
+    }
+
+    /**
+     * Returns the rows of the child table which belong to the current record, or null when no child table of the
+     * name was added.
+     */
+    public IMailMergeDataSource getChildDataSource(String tableName) {
+        ChildTable child = mChildTables.get(tableName.toUpperCase(Locale.ENGLISH));
+        if (child == null || !mCursor.hasRow()) {
+            return null;
+        }
+
+        Object parentKey = mCursor.getValue(child.mParentKeyColumn);
+        checkOrder(child.mLastParentKey, parentKey, mTableName);
+        if (parentKey != null) {
+            child.mLastParentKey = parentKey;
+        }
+
+        return new JdbcMailMergeDataTable(child, parentKey);
+    }
+
+    /**
+     * Moves the shared child cursor to its next row, checking that the child keys ascend.
+     */
+    private void nextChildRow() throws SQLException {
+        Object previousKey = mCursor.getValue(mChildKeyColumn);
+        mCursor.next();
+        if (mCursor.hasRow()) {
+            checkOrder(previousKey, mCursor.getValue(mChildKeyColumn), mTableName);
+        }
+    }
+
+    /**
+     * Throws if a key is less than the key read before it, as the merge join would skip rows otherwise.
+     * Null keys match no row and are not checked, because databases differ in where they sort them.
+     */
+    private static void checkOrder(Object previousKey, Object key, String tableName) {
+        if (previousKey != null && key != null && compareKeys(key, previousKey) < 0) {
+            throw new IllegalStateException("The keys of table " + tableName + " are not in ascending order: " + key
+                    + " follows " + previousKey + ". Sort character keys with a binary collation.");
+        }
+    }
+
+    /**
+     * Compares the keys by their natural order, which matches the order of the database for numeric and date keys.
+     * Numbers of different types, such as an Integer parent key and a Long child key, are compared by value.
+     * A null key sorts before every other key.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object childKey, Object parentKey) {
+        if (childKey == null || parentKey == null) {
+            return childKey == parentKey ? 0 : (childKey == null ? -1 : 1);
+        }
+
+        if (childKey instanceof Number && parentKey instanceof Number && childKey.getClass() != parentKey.getClass()) {
+            return new BigDecimal(childKey.toString()).compareTo(new BigDecimal(parentKey.toString()));
+        }
+
+        return ((Comparable<Object>) childKey).compareTo(parentKey);
+    }
+
+    /**
+     * A child table together with the columns joining it to its parent.
+     */
+    private static class ChildTable {
+        ChildTable(JdbcMailMergeDataTable table, int parentKeyColumn, int childKeyColumn) {
+            mTable = table;
+            mParentKeyColumn = parentKeyColumn;
+            mChildKeyColumn = childKeyColumn;
+        }
+
+        private final JdbcMailMergeDataTable mTable;
+        private final int mParentKeyColumn;
+        private final int mChildKeyColumn;
+        // The key of the last parent whose rows were requested, to check that the parent keys ascend.
+        private Object mLastParentKey;
+    }
+
+    /**
+     * Instance variables.
+     */
+    private final JdbcCursor mCursor;
+    private final String mTableName;
+    private final HashMap<String, ChildTable> mChildTables;
+    private final boolean mIsChild;
+    private final Object mParentKey;
+    private final int mChildKeyColumn;
+    private boolean mIsStarted;
+    private boolean mIsEof;
+}
+
+/**
+ * A forward only cursor over a ResultSet which holds the values of the current row. The cursor is shared by all
+ * the data sources reading the same table, so nested regions of consecutive parents continue where the previous
+ * one stopped.
+ */
+class JdbcCursor {
+    JdbcCursor(ResultSet resultSet, boolean ownsStatement) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        mResultSet = resultSet;
+        mOwnsStatement = ownsStatement;
+        mColumnIndexes = new HashMap<String, Integer>();
+        for (int i = 0; i < metaData.getColumnCount(); i++) {
+            String name = metaData.getColumnLabel(i + 1).toUpperCase(Locale.ENGLISH);
+            // The first column of a name wins, as with ResultSet.findColumn.
+            if (!mColumnIndexes.containsKey(name)) {
+                mColumnIndexes.put(name, i);
+            }
+        }
+
+        mValues = new Object[metaData.getColumnCount()];
+    }
+
+    /**
+     * Returns the zero based index of the column, or -1 when the query has no column of the name.
+     */
+    int getColumnIndex(String name) {
+        Integer index = mColumnIndexes.get(name.toUpperCase(Locale.ENGLISH));
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Moves to the first row unless the cursor has already been moved.
+     */
+    void start() throws SQLException {
+        if (!mIsStarted) {
+            next();
+        }
+    }
+
+    /**
+     * Moves to the next row and reads its values, closing the ResultSet after the last row.
+     */
+    void next() throws SQLException {
+        mIsStarted = true;
+        if (mIsClosed) {
+            return;
+        }
+
+        mHasRow = mResultSet.next();
+        if (mHasRow) {
+            for (int i = 0; i < mValues.length; i++) {
+                mValues[i] = mResultSet.getObject(i + 1);
+            }
+        } else {
+            close();
+        }
+    }
+
+    boolean hasRow() {
+        return mHasRow;
+    }
+
+    Object getValue(int column) {
+        return mValues[column];
+    }
+
+    private void close() throws SQLException {
+        mIsClosed = true;
+        Statement statement = mOwnsStatement ? mResultSet.getStatement() : null;
+        mResultSet.close();
+        if (statement != null) {
+            statement.close();
+        }
+    }
+
+    private final ResultSet mResultSet;
+    private final boolean mOwnsStatement;
+    private final HashMap<String, Integer> mColumnIndexes;
+    private final Object[] mValues;
+    private boolean mIsStarted;
+    private boolean mHasRow;
+    private boolean mIsClosed;
+}
+//ExEnd:
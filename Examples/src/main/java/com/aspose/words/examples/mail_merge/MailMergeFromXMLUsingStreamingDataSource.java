@@ -0,0 +1,40 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.Document;
+import com.aspose.words.examples.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+public class MailMergeFromXMLUsingStreamingDataSource {
+
+    //ExStart:
+    /**
+     * This sample demonstrates how to execute mail merge with data from an XML
+     * data source which is too large to be loaded into a DOM. The XML file is
+     * read record by record with a StAX pull parser by a custom data source
+     * implementing IMailMergeDataSource.
+     */
+    private static final String dataDir = Utils.getSharedDataDir(MailMergeFromXMLUsingStreamingDataSource.class) + "MailMerge/";
+
+    public static void main(String[] args) throws Exception {
+        // Open a template document.
+        Document doc = new Document(dataDir + "TestFile.doc");
+
+        // The data source reads the records while the mail merge runs and closes the file after the last one.
+        // The file is also closed here in case the mail merge fails before reaching the end.
+        // To merge multiple regions at the same time from a single XML file, use the XmlStreamMailMergeDataSet class
+        // and close it in the same way after executeWithRegions.
+        InputStream stream = new BufferedInputStream(new FileInputStream(dataDir + "Customers.xml"));
+        try {
+            doc.getMailMerge().execute(new XmlStreamMailMergeDataTable(stream, "customer"));
+        } finally {
+            stream.close();
+        }
+
+        // Save the output document.
+        doc.save(dataDir + "TestFile Out.doc");
+    }
+    //ExEnd:
+}
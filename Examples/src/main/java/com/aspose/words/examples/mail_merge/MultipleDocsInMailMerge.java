@@ -5,7 +5,6 @@ import com.aspose.words.examples.Utils;
 
 import java.sql.*;
 import java.text.MessageFormat;
-import java.util.Hashtable;
 
 
 public class MultipleDocsInMailMerge {
@@ -27,6 +26,9 @@ public class MultipleDocsInMailMerge {
         // Open the template document.
         Document doc = new Document(dataDir + srcDoc);
 
+        // Resolve the column names once, the values of each row are read into the same array.
+        ResultSetRowAdapter rowAdapter = new ResultSetRowAdapter(rs);
+
         // A record of how many documents that have been generated so far.
         int counter = 1;
 
@@ -35,38 +37,14 @@ public class MultipleDocsInMailMerge {
             // Clone the template instead of loading it from disk (for speed).
             Document dstDoc = (Document) doc.deepClone(true);
 
-            // Extract the data from the current row of the ResultSet into a Hashtable.
-            Hashtable dataMap = getRowData(rs);
-
-            // Execute mail merge.
-            dstDoc.getMailMerge().execute(keySetToArray(dataMap), dataMap.values().toArray());
+            // Execute mail merge with the values of the current row of the ResultSet.
+            dstDoc.getMailMerge().execute(rowAdapter.getFieldNames(), rowAdapter.readRow());
 
             // Save the document.
             dstDoc.save(MessageFormat.format(dataDir + "TestFile Out {0}.doc", counter++));
         }
     }
 
-    /**
-     * Creates a Hashtable from the name and value of each column in the current row of the ResultSet.
-     */
-    public static Hashtable getRowData(ResultSet rs) throws Exception {
-        ResultSetMetaData metaData = rs.getMetaData();
-        Hashtable values = new Hashtable();
-
-        for (int i = 1; i <= metaData.getColumnCount(); i++) {
-            values.put(metaData.getColumnName(i), rs.getObject(i));
-        }
-
-        return values;
-    }
-
-    /**
-     * Utility function that returns the keys of a Hashtable as an array of Strings.
-     */
-    public static String[] keySetToArray(Hashtable table) {
-        return (String[]) table.keySet().toArray(new String[table.size()]);
-    }
-
     /**
      * Executes a query to the demo database using a new statement and returns
      * the result in a ResultSet.
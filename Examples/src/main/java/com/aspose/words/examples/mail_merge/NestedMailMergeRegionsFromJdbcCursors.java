@@ -0,0 +1,51 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.Document;
+import com.aspose.words.examples.Utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+public class NestedMailMergeRegionsFromJdbcCursors {
+    //ExStart:
+    /**
+     * This sample demonstrates how to execute nested mail merge with regions
+     * directly from database cursors. Unlike NestedMailMergeRegions, the query
+     * results are not loaded into DataTable objects; the rows are read while the
+     * mail merge runs, and the items of each order are found by a merge join of
+     * two queries sorted by the order ID.
+     */
+    private static final String dataDir = Utils.getSharedDataDir(NestedMailMergeRegionsFromJdbcCursors.class) + "MailMerge/";
+
+    /**
+     * The number of rows to transfer from the database at a time.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    public static void main(String[] args) throws Exception {
+        // Create a connection to the database.
+        Class.forName("net.ucanaccess.jdbc.UcanaccessDriver");
+        Connection connection = DriverManager.getConnection("jdbc:ucanaccess://" + dataDir + "InvoiceDB.mdb");
+
+        try {
+            // Both queries must be sorted by the columns which join them.
+            JdbcMailMergeDataTable orders = JdbcMailMergeDataTable.executeQuery(connection, "SELECT * FROM Orders ORDER BY OrderID", "Orders", FETCH_SIZE);
+            JdbcMailMergeDataTable items = JdbcMailMergeDataTable.executeQuery(connection, "SELECT * FROM Items ORDER BY OrderID", "Items", FETCH_SIZE);
+
+            // Serve the Items region nested in each Orders region from the rows of the items query with the same order ID.
+            orders.addChildTable(items, "OrderID", "OrderID");
+
+            // Open the template document.
+            Document doc = new Document(dataDir + "Invoice Template.doc");
+
+            // Execute nested mail merge with regions.
+            doc.getMailMerge().executeWithRegions(orders);
+
+            // Save the output to disk.
+            doc.save(dataDir + "Invoice Out.doc");
+        } finally {
+            connection.close();
+        }
+    }
+    //ExEnd:
+}
@@ -5,7 +5,6 @@ import com.aspose.words.examples.Utils;
 
 import java.sql.*;
 import java.text.MessageFormat;
-import java.util.Hashtable;
 
 //ExStart: ProduceMultipleDocumentsDuringMailMerge
 public class ProduceMultipleDocumentsDuringMailMerge {
@@ -24,6 +23,9 @@ public class ProduceMultipleDocumentsDuringMailMerge {
         // Open the template document.
         Document doc = new Document(dataDir + srcDoc);
 
+        // Resolve the column names once, the values of each row are read into the same array.
+        ResultSetRowAdapter rowAdapter = new ResultSetRowAdapter(rs);
+
         // A record of how many documents that have been generated so far.
         int counter = 1;
 
@@ -32,11 +34,8 @@ public class ProduceMultipleDocumentsDuringMailMerge {
             // Clone the template instead of loading it from disk (for speed).
             Document dstDoc = (Document) doc.deepClone(true);
 
-            // Extract the data from the current row of the ResultSet into a Hashtable.
-            Hashtable dataMap = getRowData(rs);
-
-            // Execute mail merge.
-            dstDoc.getMailMerge().execute(keySetToArray(dataMap), dataMap.values().toArray());
+            // Execute mail merge with the values of the current row of the ResultSet.
+            dstDoc.getMailMerge().execute(rowAdapter.getFieldNames(), rowAdapter.readRow());
 
             // Save the document.
             dstDoc.save(MessageFormat.format(dataDir + "TestFile Out {0}.doc", counter++));
@@ -44,27 +43,32 @@ public class ProduceMultipleDocumentsDuringMailMerge {
         }
     }
 
-    /**
-     * Creates a Hashtable from the name and value of each column in the current
-     * row of the ResultSet.
-     */
-    public static Hashtable getRowData(ResultSet rs) throws Exception {
-        ResultSetMetaData metaData = rs.getMetaData();
-        Hashtable values = new Hashtable();
-
-        for (int i = 1; i <= metaData.getColumnCount(); i++) {
-            values.put(metaData.getColumnName(i), rs.getObject(i));
-        }
+    public static void produceMultipleDocumentsInParallel(final String dataDir, String srcDoc) throws Exception {
+        // Open the database connection.
+        ResultSet rs = getData(dataDir, "SELECT * FROM Customers");
 
-        return values;
-    }
+        // Open the template document once, every worker clones it.
+        Document doc = new Document(dataDir + srcDoc);
 
-    /**
-     * Utility function that returns the keys of a Hashtable as an array of
-     * Strings.
-     */
-    public static String[] keySetToArray(Hashtable table) {
-        return (String[]) table.keySet().toArray(new String[table.size()]);
+        // Merge on all cores while reading at most a thousand rows ahead of the workers.
+        BulkMailMergeEngine engine = new BulkMailMergeEngine(doc, Runtime.getRuntime().availableProcessors(), 1000);
+        // The directory is not part of a MessageFormat pattern, so it may contain any characters.
+        engine.setOutputNamer(new BulkMailMergeEngine.OutputNamer() {
+            public String getFileName(long recordIndex, String[] fieldNames, Object[] values) {
+                return dataDir + "TestFile Out " + recordIndex + ".doc";
+            }
+        });
+
+        // Skip records which fail to merge instead of stopping the whole run.
+        engine.setErrorHandler(new BulkMailMergeEngine.ErrorHandler() {
+            public boolean handleError(long recordIndex, Object[] values, Exception e) {
+                System.out.println("Record " + recordIndex + " failed: " + e.getMessage());
+                return true;
+            }
+        });
+
+        long count = engine.execute(rs);
+        System.out.println("Documents produced : " + count);
     }
 
     /**
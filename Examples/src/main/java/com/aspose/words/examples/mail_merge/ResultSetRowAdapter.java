@@ -0,0 +1,62 @@
+package com.aspose.words.examples.mail_merge;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+//ExStart:
+
+/**
+ * Reads the rows of a ResultSet into the field name and value arrays expected by
+ * MailMerge.execute(String[], Object[]).
+ * <p>
+ * The column names are resolved once when the adapter is created and the values of every row are copied into
+ * the same array, so no map or array is allocated per row. Names and values are both in column order, so they
+ * always line up.
+ */
+public class ResultSetRowAdapter {
+    /**
+     * Creates an adapter for the current query of the ResultSet.
+     */
+    public ResultSetRowAdapter(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        mResultSet = rs;
+        mFieldNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < mFieldNames.length; i++) {
+            mFieldNames[i] = metaData.getColumnName(i + 1);
+        }
+
+        mValues = new Object[mFieldNames.length];
+    }
+
+    /**
+     * Returns the column names in column order. The array is shared, callers must not modify it.
+     */
+    public String[] getFieldNames() {
+        return mFieldNames;
+    }
+
+    /**
+     * Copies the values of the current row into the array returned by every call. The values are only valid until
+     * the next call, so use readRow(Object[]) when rows are kept.
+     */
+    public Object[] readRow() throws SQLException {
+        return readRow(mValues);
+    }
+
+    /**
+     * Copies the values of the current row into the specified array, which must have one element per column.
+     */
+    public Object[] readRow(Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = mResultSet.getObject(i + 1);
+        }
+
+        return values;
+    }
+
+    private final ResultSet mResultSet;
+    private final String[] mFieldNames;
+    private final Object[] mValues;
+}
+//ExEnd:
@@ -0,0 +1,53 @@
+package com.aspose.words.examples.mail_merge;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.HashMap;
+
+/**
+ * Compiles XPath expressions once per path and thread and keeps them for reuse.
+ * <p>
+ * Neither XPath nor XPathExpression objects are thread-safe, so every thread gets its own XPath instance and
+ * compiled expressions, while the XPathFactory lookup, which scans the class path for implementations, is done
+ * only once per cache. An instance can be shared by any number of data sources and threads.
+ */
+class XPathExpressionCache {
+    /**
+     * Returns the compiled expression of the path for the calling thread.
+     */
+    public XPathExpression get(String path) throws XPathExpressionException {
+        ThreadCache cache = mThreadCache.get();
+        XPathExpression expression = cache.mExpressions.get(path);
+        if (expression == null) {
+            expression = cache.mXPath.compile(path);
+            cache.mExpressions.put(path, expression);
+        }
+
+        return expression;
+    }
+
+    private static class ThreadCache {
+        ThreadCache(XPath xpath) {
+            mXPath = xpath;
+        }
+
+        private final XPath mXPath;
+        private final HashMap<String, XPathExpression> mExpressions = new HashMap<String, XPathExpression>();
+    }
+
+    /**
+     * XPathFactory is not thread-safe either, so creating the XPath instances of new threads is serialized.
+     */
+    private final XPathFactory mFactory = XPathFactory.newInstance();
+
+    private final ThreadLocal<ThreadCache> mThreadCache = new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            synchronized (mFactory) {
+                return new ThreadCache(mFactory.newXPath());
+            }
+        }
+    };
+}
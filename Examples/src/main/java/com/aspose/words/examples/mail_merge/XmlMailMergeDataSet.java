@@ -16,9 +16,14 @@ public class XmlMailMergeDataSet implements IMailMergeDataSourceRoot {
     }
 
     public IMailMergeDataSource getDataSource(String tableName) throws Exception {
-        return new XmlMailMergeDataTable(mXmlDoc, tableName);
+        return new XmlMailMergeDataTable(mXmlDoc, tableName, mExpressionCache);
     }
 
     private org.w3c.dom.Document mXmlDoc;
+
+    /**
+     * Shared by all data sources of this data set, including the nested ones, and by concurrent merges of it.
+     */
+    private final XPathExpressionCache mExpressionCache = new XPathExpressionCache();
 }
 //ExEnd:
\ No newline at end of file
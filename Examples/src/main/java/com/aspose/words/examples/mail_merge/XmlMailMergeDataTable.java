@@ -3,12 +3,11 @@ package com.aspose.words.examples.mail_merge;
 import com.aspose.words.IMailMergeDataSource;
 import com.aspose.words.ref.Ref;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 import java.util.HashMap;
 
 //ExStart:
@@ -33,14 +32,23 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
      *                  the region is extracted from.
      */
     public XmlMailMergeDataTable(org.w3c.dom.Document xmlDoc, String tableName) throws Exception {
-        this(xmlDoc.getDocumentElement(), tableName);
+        this(xmlDoc.getDocumentElement(), tableName, new XPathExpressionCache());
+    }
+
+    /**
+     * Creates a new XmlMailMergeDataSource which compiles its XPath expressions through the specified cache.
+     * Used by XmlMailMergeDataSet so that all regions and nested regions share one cache.
+     */
+    XmlMailMergeDataTable(org.w3c.dom.Document xmlDoc, String tableName, XPathExpressionCache expressionCache) throws Exception {
+        this(xmlDoc.getDocumentElement(), tableName, expressionCache);
     }
 
     /**
      * Private constructor that is also called by GetChildDataSource.
      */
-    private XmlMailMergeDataTable(Node rootNode, String tableName) throws Exception {
+    private XmlMailMergeDataTable(Node rootNode, String tableName, XPathExpressionCache expressionCache) throws Exception {
         mTableName = tableName;
+        mExpressionCache = expressionCache;
 
         // Get the first element on this level matching the table name.
         mCurrentNode = (Node) retrieveExpression("./" + tableName).evaluate(rootNode, XPathConstants.NODE);
@@ -58,6 +66,15 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
      * Aspose.Words calls this method to get a value for every data field.
      */
     public boolean getValue(String fieldName, Ref<Object> fieldValue) throws Exception {
+        // Plain names are resolved from the child elements and attributes indexed when the record was entered.
+        Node field = mFieldNodes.get(fieldName);
+        if (field != null) {
+            fieldValue.set(field.getTextContent());
+            return true;
+        } else if (isPlainName(fieldName)) {
+            return false;
+        }
+
         // Attempt to retrieve the child node matching the field name by using XPath.
         Node value = (Node) retrieveExpression(fieldName).evaluate(mCurrentNode, XPathConstants.NODE);
         // We also look for the field name in attributes of the element node.
@@ -98,11 +115,66 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
             } else {
                 mIsFirstRecord = false;
             }
+
+            indexFields();
         }
 
         return (!isEof());
     }
 
+    /**
+     * Maps the names of the child elements and attributes of the current record to their nodes, so every field of
+     * the record is resolved with a map lookup instead of an XPath evaluation. Child elements take precedence over
+     * attributes and the first child element of a name wins, as with the XPath lookup.
+     */
+    private void indexFields() {
+        mFieldNodes.clear();
+        if (isEof()) {
+            return;
+        }
+
+        for (Node child = mCurrentNode.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && !mFieldNodes.containsKey(child.getNodeName())) {
+                mFieldNodes.put(child.getNodeName(), child);
+            }
+        }
+
+        NamedNodeMap attributes = mCurrentNode.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (!mFieldNodes.containsKey(attribute.getNodeName())) {
+                mFieldNodes.put(attribute.getNodeName(), attribute);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the field name can only match a child element or attribute of that name, so it does not need
+     * to be evaluated as an XPath expression. The name must start like an XML element name, so "." and ".." and
+     * names starting with a digit are still evaluated as XPath.
+     */
+    private static boolean isPlainName(String fieldName) {
+        if (fieldName.length() == 0 || !isNameStartChar(fieldName.charAt(0))) {
+            return false;
+        }
+
+        for (int i = 1; i < fieldName.length(); i++) {
+            char c = fieldName.charAt(i);
+            if (!isNameStartChar(c) && !Character.isDigit(c) && c != '-' && c != '.') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true for characters an XML element name can start with, except ':' which separates a namespace prefix.
+     */
+    private static boolean isNameStartChar(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
     /**
      * If the data source contains nested data this method will be called to
      * retrieve the data for the child table. In the XML data source nested data
@@ -118,7 +190,7 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
      * </Tables>
      */
     public IMailMergeDataSource getChildDataSource(String tableName) throws Exception {
-        return new XmlMailMergeDataTable(mCurrentNode, tableName);
+        return new XmlMailMergeDataTable(mCurrentNode, tableName, mExpressionCache);
     }
 
     private boolean isEof() {
@@ -130,15 +202,7 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
      * otherwise creates a new expression.
      */
     private XPathExpression retrieveExpression(String path) throws Exception {
-        XPathExpression expression;
-
-        if (mExpressionSet.containsKey(path)) {
-            expression = (XPathExpression) mExpressionSet.get(path);
-        } else {
-            expression = mXPath.compile(path);
-            mExpressionSet.put(path, expression);
-        }
-        return expression;
+        return mExpressionCache.get(path);
     }
 
     /**
@@ -147,7 +211,7 @@ public class XmlMailMergeDataTable implements IMailMergeDataSource {
     private Node mCurrentNode;
     private boolean mIsFirstRecord = true;
     private final String mTableName;
-    private final HashMap mExpressionSet = new HashMap();
-    private final XPath mXPath = XPathFactory.newInstance().newXPath();
+    private final XPathExpressionCache mExpressionCache;
+    private final HashMap<String, Node> mFieldNodes = new HashMap<String, Node>();
 }
 //ExEnd:
\ No newline at end of file
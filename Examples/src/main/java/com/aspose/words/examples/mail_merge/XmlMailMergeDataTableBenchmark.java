@@ -0,0 +1,117 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.ref.Ref;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Compares resolving merge fields with an XPath evaluation per field against the per-record field map of
+ * {@link XmlMailMergeDataTable} on a generated customers document. Pass the number of records and fields as arguments.
+ */
+public class XmlMailMergeDataTableBenchmark {
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int fieldCount = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        org.w3c.dom.Document xmlDoc = createCustomers(recordCount, fieldCount);
+        String[] fieldNames = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = "Field" + i;
+        }
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long startTime = System.nanoTime();
+            int xpathHits = mergeWithXPath(xmlDoc, fieldNames);
+            long xpathTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            int mapHits = mergeWithFieldMap(xmlDoc, fieldNames);
+            long mapTime = System.nanoTime() - startTime;
+
+            System.out.println(String.format("%d records x %d fields: XPath per field %d ms (%d values), field map %d ms (%d values)",
+                    recordCount, fieldCount, xpathTime / 1000000, xpathHits, mapTime / 1000000, mapHits));
+        }
+    }
+
+    /**
+     * Resolves every field the way XmlMailMergeDataTable did before records were indexed.
+     */
+    private static int mergeWithXPath(org.w3c.dom.Document xmlDoc, String[] fieldNames) throws Exception {
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        XPathExpression[] expressions = new XPathExpression[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            expressions[i] = xpath.compile(fieldNames[i]);
+        }
+
+        int hits = 0;
+        for (Node record = xmlDoc.getDocumentElement().getFirstChild(); record != null; record = record.getNextSibling()) {
+            if (record.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+
+            for (int i = 0; i < fieldNames.length; i++) {
+                Node value = (Node) expressions[i].evaluate(record, XPathConstants.NODE);
+                if (value != null) {
+                    value.getTextContent();
+                    hits++;
+                } else if (((Element) record).hasAttribute(fieldNames[i])) {
+                    ((Element) record).getAttribute(fieldNames[i]);
+                    hits++;
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    private static int mergeWithFieldMap(org.w3c.dom.Document xmlDoc, String[] fieldNames) throws Exception {
+        XmlMailMergeDataTable table = new XmlMailMergeDataTable(xmlDoc, "customer");
+        Ref<Object> fieldValue = new Ref<Object>(null);
+
+        int hits = 0;
+        while (table.moveNext()) {
+            for (String fieldName : fieldNames) {
+                if (table.getValue(fieldName, fieldValue)) {
+                    hits++;
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    /**
+     * Generates records in the shape of Customers.xml, with half of the fields as attributes and half as child elements.
+     */
+    private static org.w3c.dom.Document createCustomers(int recordCount, int fieldCount) throws Exception {
+        org.w3c.dom.Document xmlDoc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = xmlDoc.createElement("customers");
+        xmlDoc.appendChild(root);
+
+        for (int record = 0; record < recordCount; record++) {
+            Element customer = xmlDoc.createElement("customer");
+            for (int field = 0; field < fieldCount; field++) {
+                String value = "Value " + record + "." + field;
+                if (field % 2 == 0) {
+                    customer.setAttribute("Field" + field, value);
+                } else {
+                    Element child = xmlDoc.createElement("Field" + field);
+                    child.setTextContent(value);
+                    customer.appendChild(child);
+                }
+            }
+
+            root.appendChild(customer);
+        }
+
+        return xmlDoc;
+    }
+}
@@ -0,0 +1,62 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.IMailMergeDataSourceRoot;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+//ExStart:
+public class XmlStreamMailMergeDataSet implements IMailMergeDataSourceRoot, Closeable {
+    /**
+     * Creates a new XmlStreamMailMergeDataSet for the specified XML file. All regions in the document can be
+     * merged at once using this class. Every region reads the file in a forward-only pass of its own, so the
+     * file is never loaded into memory. Call close after the mail merge to close the files of regions that
+     * were not read to the end.
+     *
+     * @param xmlFile The XML file which contains the data.
+     */
+    public XmlStreamMailMergeDataSet(File xmlFile) {
+        mXmlFile = xmlFile;
+        mInputFactory = XmlStreamMailMergeDataTable.createInputFactory();
+    }
+
+    public IMailMergeDataSource getDataSource(String tableName) throws Exception {
+        InputStream stream = new BufferedInputStream(new FileInputStream(mXmlFile));
+        XmlStreamMailMergeDataTable table = new XmlStreamMailMergeDataTable(mInputFactory, stream, tableName);
+        mTables.add(table);
+        return table;
+    }
+
+    /**
+     * Closes the files of all regions returned by getDataSource.
+     */
+    public void close() throws IOException {
+        IOException failure = null;
+        for (XmlStreamMailMergeDataTable table : mTables) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        mTables.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private final File mXmlFile;
+    private final XMLInputFactory mInputFactory;
+    private final ArrayList<XmlStreamMailMergeDataTable> mTables = new ArrayList<XmlStreamMailMergeDataTable>();
+}
+//ExEnd:
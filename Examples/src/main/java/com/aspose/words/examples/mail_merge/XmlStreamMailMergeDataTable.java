@@ -0,0 +1,260 @@
+package com.aspose.words.examples.mail_merge;
+
+import com.aspose.words.IMailMergeDataSource;
+import com.aspose.words.ref.Ref;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+//ExStart:
+
+/**
+ * A custom mail merge data source that reads records from an XML document with a StAX pull parser instead of
+ * loading the whole document into a DOM. Only the record being merged is held in memory, so XML data far larger
+ * than the heap can be merged.
+ * <p>
+ * Records are the elements named after the table which are children of the root element, as with
+ * XmlMailMergeDataTable. When a record is read, its child elements and attributes are indexed once into a
+ * field name to value map which serves all getValue calls for that record. Field names are matched against child
+ * element names and attribute names only; XPath expressions are not supported.
+ * <p>
+ * Records are read forward only. Nested regions are served from the child elements of the current record.
+ * The stream is closed after the last record; call close when the mail merge may stop before that, e.g. on an error.
+ */
+public class XmlStreamMailMergeDataTable implements IMailMergeDataSource, Closeable {
+    /**
+     * Creates a new data source which reads the records of the specified table from the XML stream.
+     * The stream is closed when the last record has been read.
+     *
+     * @param stream    The stream which contains the XML data.
+     * @param tableName The name of the record elements.
+     */
+    public XmlStreamMailMergeDataTable(InputStream stream, String tableName) throws XMLStreamException {
+        this(createInputFactory(), stream, tableName);
+    }
+
+    /**
+     * Constructor that is also called by XmlStreamMailMergeDataSet, which shares one factory between its regions.
+     */
+    XmlStreamMailMergeDataTable(XMLInputFactory inputFactory, InputStream stream, String tableName) throws XMLStreamException {
+        mStream = stream;
+        try {
+            mReader = inputFactory.createXMLStreamReader(stream);
+        } catch (XMLStreamException e) {
+            closeQuietly(stream);
+            throw e;
+        }
+        mTableName = tableName;
+        mRecords = null;
+    }
+
+    /**
+     * Private constructor that is called by getChildDataSource.
+     */
+    private XmlStreamMailMergeDataTable(List<XmlRecord> records, String tableName) {
+        mStream = null;
+        mReader = null;
+        mTableName = tableName;
+        mRecords = records.iterator();
+    }
+
+    /**
+     * The name of the data source. Used by Aspose.Words only when executing
+     * mail merge with repeatable regions.
+     */
+    public String getTableName() {
+        return mTableName;
+    }
+
+    /**
+     * Aspose.Words calls this method to get a value for every data field.
+     */
+    public boolean getValue(String fieldName, Ref<Object> fieldValue) {
+        String value = mCurrentRecord.getValue(fieldName);
+        if (value == null) {
+            // Field does not exist in the data source, return false.
+            // No value will be merged for this field and it is left over in the document.
+            return false;
+        }
+
+        fieldValue.set(value);
+        return true;
+    }
+
+    /**
+     * Moves to the next record, reading it from the stream for a top level table.
+     */
+    public boolean moveNext() throws XMLStreamException {
+        if (mRecords != null) {
+            mCurrentRecord = mRecords.hasNext() ? mRecords.next() : null;
+        } else if (!mIsEof) {
+            mCurrentRecord = readNextRecord();
+        }
+
+        return mCurrentRecord != null;
+    }
+
+    /**
+     * Returns the child elements of the current record matching the table name as a nested data source.
+     */
+    public IMailMergeDataSource getChildDataSource(String tableName) {
+        return new XmlStreamMailMergeDataTable(mCurrentRecord.getChildren(tableName), tableName);
+    }
+
+    /**
+     * Skips to the next child of the root element matching the table name and reads it.
+     */
+    private XmlRecord readNextRecord() throws XMLStreamException {
+        while (mReader.hasNext()) {
+            int event = mReader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                mDepth++;
+                if (mDepth == RECORD_DEPTH && mReader.getLocalName().equals(mTableName)) {
+                    XmlRecord record = XmlRecord.read(mReader);
+                    mDepth--;
+                    return record;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                mDepth--;
+            }
+        }
+
+        mIsEof = true;
+        try {
+            close();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Closes the reader and the stream of a top level table. Does nothing if they are already closed.
+     */
+    public void close() throws IOException {
+        if (mStream == null || mIsClosed) {
+            return;
+        }
+
+        mIsClosed = true;
+        try {
+            mReader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            mStream.close();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // The original failure is more useful than a failure to close.
+        }
+    }
+
+    /**
+     * Creates a factory for reading the data. The data is not expected to need a DTD, and not resolving one keeps
+     * external entities out.
+     */
+    static XMLInputFactory createInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return inputFactory;
+    }
+
+    /**
+     * Records are children of the root element.
+     */
+    private static final int RECORD_DEPTH = 2;
+
+    /**
+     * Instance variables.
+     */
+    private final InputStream mStream;
+    private final XMLStreamReader mReader;
+    private final Iterator<XmlRecord> mRecords;
+    private final String mTableName;
+    private XmlRecord mCurrentRecord;
+    private int mDepth;
+    private boolean mIsEof;
+    private boolean mIsClosed;
+}
+
+/**
+ * An element read from the XML stream together with its child elements.
+ */
+class XmlRecord {
+    /**
+     * Reads the element the reader is positioned at, leaving the reader at its end element.
+     */
+    static XmlRecord read(XMLStreamReader reader) throws XMLStreamException {
+        XmlRecord record = new XmlRecord();
+        HashMap<String, String> attributes = new HashMap<String, String>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                XmlRecord child = read(reader);
+                text.append(child.mText);
+
+                // The first child element of a name provides the value of the field, as the first XPath match would.
+                if (!record.mValues.containsKey(name)) {
+                    record.mValues.put(name, child.mText);
+                }
+
+                if (!record.mChildren.containsKey(name)) {
+                    record.mChildren.put(name, new ArrayList<XmlRecord>());
+                }
+                record.mChildren.get(name).add(child);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        // Child elements take precedence over attributes of the same name.
+        for (String name : attributes.keySet()) {
+            if (!record.mValues.containsKey(name)) {
+                record.mValues.put(name, attributes.get(name));
+            }
+        }
+
+        record.mText = text.toString();
+        return record;
+    }
+
+    String getValue(String fieldName) {
+        return mValues.get(fieldName);
+    }
+
+    List<XmlRecord> getChildren(String name) {
+        List<XmlRecord> children = mChildren.get(name);
+        return children != null ? children : Collections.<XmlRecord>emptyList();
+    }
+
+    private String mText;
+    private final HashMap<String, String> mValues = new HashMap<String, String>();
+    private final HashMap<String, List<XmlRecord>> mChildren = new HashMap<String, List<XmlRecord>>();
+}
+//ExEnd:
@@ -0,0 +1,508 @@
+package com.aspose.words.examples.programming_documents.find_replace;
+
+import com.aspose.words.FindReplaceOptions;
+import com.aspose.words.IReplacingCallback;
+import com.aspose.words.Range;
+import com.aspose.words.ReplaceAction;
+import com.aspose.words.ReplacingArgs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+//ExStart:BatchReplacer
+
+/**
+ * Applies many find and replace rules to a range with a single call to Range.replace, instead of one call, and one
+ * scan of the whole document, per rule.
+ * <p>
+ * Before replacing, the text of the range is read once and the literal rules are looked up in it with an Aho-Corasick
+ * automaton, so only the literals that occur in the text take part. Regular expression rules are not tried on their
+ * own, which would cost a scan of the text per rule; they all take part. The rules are compiled into one pattern:
+ * the literals as a trie, the regular expressions as an alternation, each in a group of its own. The document is
+ * then scanned once, and every match is dispatched to the rule that produced it.
+ * <p>
+ * Unlike a sequence of replace calls, the text is scanned once, so a rule never matches the replacement made by
+ * another rule. Where several rules match at the same position, literal rules take precedence over regular
+ * expressions, the longest literal wins and regular expressions are tried in the order they were added. The groups of
+ * a regular expression rule are renumbered and its named groups renamed in the combined pattern, so several rules can
+ * use the same name; back references are rewritten to match, and getGroup reads the groups by their own number or
+ * name. The &amp;p style meta-characters are not supported.
+ */
+public class BatchReplacer {
+    /**
+     * Creates a replacer whose literal rules match case-insensitively, as Range.replace does by default.
+     */
+    public BatchReplacer() {
+        this(false);
+    }
+
+    /**
+     * @param matchCase True if literal rules must match the case of the text.
+     */
+    public BatchReplacer(boolean matchCase) {
+        mMatchCase = matchCase;
+    }
+
+    /**
+     * Adds a rule which replaces every occurrence of the text with the replacement.
+     */
+    public void addLiteral(String text, String replacement) {
+        addRule(text, null, replacement, null);
+    }
+
+    /**
+     * Adds a rule which passes every occurrence of the text to the callback.
+     */
+    public void addLiteral(String text, IReplacingCallback callback) {
+        addRule(text, null, null, callback);
+    }
+
+    /**
+     * Adds a rule which replaces every match of the pattern with the replacement. The replacement is not parsed
+     * for substitutions.
+     */
+    public void addPattern(Pattern pattern, String replacement) {
+        addRule(null, pattern, replacement, null);
+    }
+
+    /**
+     * Adds a rule which passes every match of the pattern to the callback. While the callback runs, getGroup
+     * returns the groups of the rule's own pattern.
+     */
+    public void addPattern(Pattern pattern, IReplacingCallback callback) {
+        addRule(null, pattern, null, callback);
+    }
+
+    /**
+     * Returns the text of a group of the pattern of the rule whose callback is running, numbered as in that pattern.
+     * ReplacingArgs.getMatch returns the match of the combined pattern, whose group numbers are different.
+     */
+    public String getGroup(ReplacingArgs e, int group) throws Exception {
+        return e.getMatch().group(mCurrentGroupOffset + group);
+    }
+
+    /**
+     * Returns the text of a named group of the pattern of the rule whose callback is running.
+     */
+    public String getGroup(ReplacingArgs e, String name) throws Exception {
+        return e.getMatch().group(groupPrefix(mCurrentGroupOffset) + name);
+    }
+
+    /**
+     * Applies all rules to the range and returns the number of replacements made.
+     */
+    public int replace(Range range) throws Exception {
+        String text = range.getText();
+        Pattern combined = compile(text);
+        if (combined == null)
+            return 0;
+
+        FindReplaceOptions options = new FindReplaceOptions();
+        options.setReplacingCallback(new RuleDispatcher());
+        return range.replace(combined, "", options);
+    }
+
+    /**
+     * Builds the combined pattern of the literal rules that occur in the text and of all regular expression rules, or
+     * returns null if there are none.
+     */
+    private Pattern compile(String text) {
+        mLiteralRules.clear();
+        mPatternRules.clear();
+
+        String searchText = mMatchCase ? text : text.toLowerCase(Locale.ROOT);
+        boolean[] found = findLiterals(searchText);
+
+        TrieNode trie = new TrieNode();
+        for (int i = 0; i < mRules.size(); i++) {
+            Rule rule = mRules.get(i);
+            if (rule.mLiteral != null) {
+                if (found[i] && !mLiteralRules.containsKey(rule.mLiteral)) {
+                    mLiteralRules.put(rule.mLiteral, rule);
+                    trie.add(rule.mLiteral);
+                }
+            } else {
+                mPatternRules.add(rule);
+            }
+        }
+
+        if (mLiteralRules.isEmpty() && mPatternRules.isEmpty())
+            return null;
+
+        // Group 1 is the literal trie, the groups of the regular expressions follow.
+        StringBuilder combined = new StringBuilder();
+        combined.append('(');
+        if (!mLiteralRules.isEmpty())
+            trie.appendRegex(combined);
+        else
+            combined.append("(?!)");
+        combined.append(')');
+
+        int group = 2;
+        for (Rule rule : mPatternRules) {
+            rule.mGroup = group;
+            combined.append('|');
+            appendGroup(combined, rule.mPattern, group);
+            group += 1 + rule.mPattern.matcher("").groupCount();
+        }
+
+        return Pattern.compile(combined.toString(), mMatchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    /**
+     * Finds which literal rules occur in the text with an Aho-Corasick automaton, in a single pass over the text.
+     */
+    private boolean[] findLiterals(String searchText) {
+        boolean[] found = new boolean[mRules.size()];
+        if (mAutomaton == null) {
+            ArrayList<String> literals = new ArrayList<String>(mRules.size());
+            for (Rule rule : mRules)
+                literals.add(rule.mLiteral);
+            mAutomaton = new LiteralAutomaton(literals);
+        }
+        mAutomaton.search(searchText, found);
+        return found;
+    }
+
+    private void addRule(String literal, Pattern pattern, String replacement, IReplacingCallback callback) {
+        if (literal != null && literal.isEmpty())
+            throw new IllegalArgumentException("The text of a literal rule must not be empty.");
+
+        Rule rule = new Rule();
+        // Literals are matched in lower case unless the case must match.
+        rule.mLiteral = (literal == null || mMatchCase) ? literal : literal.toLowerCase(Locale.ROOT);
+        rule.mPattern = pattern;
+        rule.mReplacement = replacement;
+        rule.mCallback = callback;
+        mRules.add(rule);
+        mAutomaton = null;
+    }
+
+    /**
+     * Appends the pattern as a group of the combined pattern. The flags of the pattern are set inline, so they only
+     * apply to its part of the combined pattern, its named groups are renamed, so they are unique, and its numbered
+     * back references are renumbered.
+     */
+    private static void appendGroup(StringBuilder combined, Pattern pattern, int group) {
+        int flags = pattern.flags();
+        boolean isLiteral = (flags & Pattern.LITERAL) != 0;
+        boolean hasComments = !isLiteral && (flags & Pattern.COMMENTS) != 0;
+
+        combined.append("((?");
+        if ((flags & Pattern.CASE_INSENSITIVE) != 0)
+            combined.append('i');
+        if ((flags & Pattern.UNICODE_CASE) != 0)
+            combined.append('u');
+        // The other flags have no effect on a literal pattern.
+        if (!isLiteral && (flags & Pattern.MULTILINE) != 0)
+            combined.append('m');
+        if (!isLiteral && (flags & Pattern.DOTALL) != 0)
+            combined.append('s');
+        if (hasComments)
+            combined.append('x');
+
+        // Case-insensitive matching is switched off for patterns which do not ask for it.
+        if ((flags & Pattern.CASE_INSENSITIVE) == 0)
+            combined.append("-iu");
+        combined.append(':');
+
+        if (isLiteral) {
+            combined.append(Pattern.quote(pattern.pattern()));
+        } else {
+            appendRenamingGroups(combined, pattern.pattern(), group, pattern.matcher("").groupCount(), hasComments);
+            // Ends a comment on the last line of the pattern, which would otherwise hide the closing parentheses.
+            if (hasComments)
+                combined.append('\n');
+        }
+
+        combined.append("))");
+    }
+
+    /**
+     * Appends the regular expression with the prefix of the group added to the names of its named groups and of the
+     * back references to them, and with the group added to the numbers of its numbered back references. Character
+     * classes, quoted text and, with comments enabled, comments are copied unchanged.
+     */
+    private static void appendRenamingGroups(StringBuilder combined, String regex, int group, int groupCount,
+                                             boolean hasComments) {
+        String prefix = groupPrefix(group);
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                char next = regex.charAt(i + 1);
+                if (next == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    if (end < 0) {
+                        // Quoted text running to the end of the pattern is closed, so it does not quote what follows.
+                        combined.append(regex, i, regex.length()).append("\\E");
+                        return;
+                    }
+                    combined.append(regex, i, end + 2);
+                    i = end + 1;
+                } else if (next == 'k' && classDepth == 0 && regex.startsWith("<", i + 2)) {
+                    combined.append("\\k<").append(prefix);
+                    i += 2;
+                } else if (next >= '1' && next <= '9' && classDepth == 0) {
+                    // Like the regex engine, take further digits only while they name a group of the pattern.
+                    int reference = next - '0';
+                    i++;
+                    while (i + 1 < regex.length() && Character.isDigit(regex.charAt(i + 1))
+                            && reference * 10 + (regex.charAt(i + 1) - '0') <= groupCount) {
+                        reference = reference * 10 + (regex.charAt(i + 1) - '0');
+                        i++;
+                    }
+                    // The group keeps digits which follow the reference from being read as part of it.
+                    combined.append("(?:\\").append(group + reference).append(')');
+                } else {
+                    combined.append(c).append(next);
+                    i++;
+                }
+            } else if (c == '#' && hasComments) {
+                int end = regex.indexOf('\n', i);
+                if (end < 0)
+                    end = regex.length();
+                combined.append(regex, i, end);
+                i = end - 1;
+            } else if (c == '[') {
+                classDepth++;
+                combined.append(c);
+            } else if (c == ']' && classDepth > 0) {
+                classDepth--;
+                combined.append(c);
+            } else if (c == '(' && classDepth == 0 && regex.startsWith("(?<", i) && i + 3 < regex.length()
+                    && Character.isLetter(regex.charAt(i + 3))) {
+                combined.append("(?<").append(prefix);
+                i += 2;
+            } else {
+                combined.append(c);
+            }
+        }
+    }
+
+    /**
+     * Returns the prefix of the names of the named groups of the rule whose pattern starts at the group. Group names
+     * start with a letter, so the prefixed names of different rules cannot be the same.
+     */
+    private static String groupPrefix(int group) {
+        return "g" + group;
+    }
+
+    /**
+     * The callback which Range.replace calls for every match of the combined pattern.
+     */
+    private class RuleDispatcher implements IReplacingCallback {
+        public int replacing(ReplacingArgs e) throws Exception {
+            Rule rule = null;
+            String literal = e.getMatch().group(1);
+            if (literal != null) {
+                rule = findLiteralRule(literal);
+                if (rule == null)
+                    return ReplaceAction.SKIP;
+                mCurrentGroupOffset = 1;
+            } else {
+                for (Rule patternRule : mPatternRules) {
+                    if (e.getMatch().group(patternRule.mGroup) != null) {
+                        rule = patternRule;
+                        break;
+                    }
+                }
+                mCurrentGroupOffset = rule.mGroup;
+            }
+
+            if (rule.mCallback != null)
+                return rule.mCallback.replacing(e);
+
+            e.setReplacement(rule.mReplacement);
+            return ReplaceAction.REPLACE;
+        }
+
+        /**
+         * Returns the literal rule which matched the text. Without matchCase, the combined pattern compares characters
+         * case-insensitively, which a lower case lookup does not always agree with, such as for the dotless i.
+         */
+        private Rule findLiteralRule(String literal) {
+            if (mMatchCase)
+                return mLiteralRules.get(literal);
+
+            Rule rule = mLiteralRules.get(literal.toLowerCase(Locale.ROOT));
+            if (rule != null)
+                return rule;
+
+            for (Map.Entry<String, Rule> literalRule : mLiteralRules.entrySet()) {
+                if (literalRule.getKey().equalsIgnoreCase(literal))
+                    return literalRule.getValue();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A find and replace rule. Either the literal or the pattern is set, and either the replacement or the callback.
+     */
+    private static class Rule {
+        private String mLiteral;
+        private Pattern mPattern;
+        private String mReplacement;
+        private IReplacingCallback mCallback;
+        private int mGroup;
+    }
+
+    /**
+     * A trie of the literals, written out as a regular expression which the regex engine matches without trying
+     * every literal at every position of the text.
+     */
+    private static class TrieNode {
+        void add(String literal) {
+            TrieNode node = this;
+            for (int i = 0; i < literal.length(); ) {
+                int codePoint = literal.codePointAt(i);
+                TrieNode child = node.mChildren.get(codePoint);
+                if (child == null) {
+                    child = new TrieNode();
+                    node.mChildren.put(codePoint, child);
+                }
+                node = child;
+                i += Character.charCount(codePoint);
+            }
+            node.mIsEnd = true;
+        }
+
+        void appendRegex(StringBuilder regex) {
+            if (mChildren.isEmpty())
+                return;
+
+            boolean several = mChildren.size() > 1;
+            if (several || mIsEnd)
+                regex.append("(?:");
+
+            boolean first = true;
+            for (Map.Entry<Integer, TrieNode> child : mChildren.entrySet()) {
+                if (!first)
+                    regex.append('|');
+                first = false;
+
+                appendCodePoint(regex, child.getKey());
+                child.getValue().appendRegex(regex);
+            }
+
+            // The greedy optional group makes the regex engine prefer the longest literal.
+            if (several || mIsEnd)
+                regex.append(mIsEnd ? ")?" : ")");
+        }
+
+        private static void appendCodePoint(StringBuilder regex, int codePoint) {
+            if (Character.isLetterOrDigit(codePoint) || codePoint == ' ')
+                regex.appendCodePoint(codePoint);
+            else
+                regex.append("\\x{").append(Integer.toHexString(codePoint)).append('}');
+        }
+
+        private final TreeMap<Integer, TrieNode> mChildren = new TreeMap<Integer, TrieNode>();
+        private boolean mIsEnd;
+    }
+
+    private final boolean mMatchCase;
+    private final ArrayList<Rule> mRules = new ArrayList<Rule>();
+    private final HashMap<String, Rule> mLiteralRules = new HashMap<String, Rule>();
+    private final ArrayList<Rule> mPatternRules = new ArrayList<Rule>();
+    private LiteralAutomaton mAutomaton;
+    private int mCurrentGroupOffset;
+}
+
+/**
+ * An Aho-Corasick automaton over the literal rules, which finds all of them in one pass over a text.
+ */
+class LiteralAutomaton {
+    /**
+     * @param literals The literals of the rules, null for rules which are not literals.
+     */
+    LiteralAutomaton(List<String> literals) {
+        mNodes.add(new Node());
+        for (int i = 0; i < literals.size(); i++) {
+            if (literals.get(i) != null)
+                add(literals.get(i), i);
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * Marks the rules whose literal occurs in the text.
+     */
+    void search(String text, boolean[] found) {
+        boolean[] reported = new boolean[mNodes.size()];
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (state != 0 && !mNodes.get(state).mNext.containsKey(c))
+                state = mNodes.get(state).mFailure;
+
+            Integer next = mNodes.get(state).mNext.get(c);
+            state = (next != null) ? next : 0;
+
+            // Follow the chain of literals ending here, each node is only reported once.
+            for (int node = state; node > 0 && !reported[node]; node = mNodes.get(node).mOutput) {
+                reported[node] = true;
+                for (int rule : mNodes.get(node).mRules)
+                    found[rule] = true;
+            }
+        }
+    }
+
+    private void add(String literal, int rule) {
+        int state = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            Integer next = mNodes.get(state).mNext.get(c);
+            if (next == null) {
+                next = mNodes.size();
+                mNodes.add(new Node());
+                mNodes.get(state).mNext.put(c, next);
+            }
+            state = next;
+        }
+        mNodes.get(state).mRules.add(rule);
+    }
+
+    private void buildFailureLinks() {
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        for (int child : mNodes.get(0).mNext.values())
+            queue.add(child);
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> transition : mNodes.get(state).mNext.entrySet()) {
+                char c = transition.getKey();
+                int child = transition.getValue();
+                queue.add(child);
+
+                int failure = mNodes.get(state).mFailure;
+                while (failure != 0 && !mNodes.get(failure).mNext.containsKey(c))
+                    failure = mNodes.get(failure).mFailure;
+                Integer target = mNodes.get(failure).mNext.get(c);
+                Node childNode = mNodes.get(child);
+                childNode.mFailure = (target != null && target != child) ? target : 0;
+
+                // The output link skips to the nearest node on the failure chain which ends a literal.
+                Node failureNode = mNodes.get(childNode.mFailure);
+                childNode.mOutput = failureNode.mRules.isEmpty() ? failureNode.mOutput : childNode.mFailure;
+            }
+        }
+    }
+
+    private static class Node {
+        private final HashMap<Character, Integer> mNext = new HashMap<Character, Integer>();
+        private final ArrayList<Integer> mRules = new ArrayList<Integer>();
+        private int mFailure;
+        private int mOutput;
+    }
+
+    private final ArrayList<Node> mNodes = new ArrayList<Node>();
+}
+//ExEnd:BatchReplacer
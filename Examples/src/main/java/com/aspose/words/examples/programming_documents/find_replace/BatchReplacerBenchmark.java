@@ -0,0 +1,92 @@
+package com.aspose.words.examples.programming_documents.find_replace;
+
+import com.aspose.words.Document;
+import com.aspose.words.DocumentBuilder;
+import com.aspose.words.FindReplaceOptions;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compares BatchReplacer with calling Range.replace once per rule on a generated document.
+ * Pass the number of paragraphs and the number of literal rules as arguments. Each paragraph uses a few of the
+ * literal rules, and the regular expression rules apply to every paragraph. The rules do not overlap, so both
+ * approaches must produce the same text, which is checked.
+ * <p>
+ * The regular expression rules include a pattern compiled with Pattern.LITERAL, a Pattern.COMMENTS pattern which
+ * ends in a comment and two patterns with a group of the same name, which BatchReplacer must combine correctly.
+ */
+public class BatchReplacerBenchmark {
+    private static final int ITERATIONS = 3;
+
+    private static final Pattern[] PATTERNS = {
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}"),
+            Pattern.compile("[s|m]ad"),
+            // Unless it is quoted, this matches the "ab" of "about".
+            Pattern.compile("(a+b)", Pattern.LITERAL),
+            Pattern.compile("(?<number>\\d{2}) : (?<minutes>\\d{2})  # hours and minutes", Pattern.COMMENTS),
+            Pattern.compile("(?<number>\\d+)%")
+    };
+
+    private static final String[] PATTERN_VALUES = {"DATE", "happy", "SUM", "TIME", "PERCENT"};
+
+    public static void main(String[] args) throws Exception {
+        int paragraphCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int ruleCount = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            Document sequentialDoc = createDocument(paragraphCount, ruleCount);
+            long startTime = System.nanoTime();
+            replaceSequentially(sequentialDoc, ruleCount);
+            long sequentialTime = System.nanoTime() - startTime;
+
+            Document batchDoc = createDocument(paragraphCount, ruleCount);
+            startTime = System.nanoTime();
+            createBatchReplacer(ruleCount).replace(batchDoc.getRange());
+            long batchTime = System.nanoTime() - startTime;
+
+            if (!sequentialDoc.getText().equals(batchDoc.getText()))
+                throw new IllegalStateException("The batch replacement differs from the sequential replacement.");
+
+            System.out.println(String.format("%d paragraphs, %d rules: sequential %.1f ms, batch %.1f ms",
+                    paragraphCount, ruleCount + PATTERNS.length, sequentialTime / 1e6, batchTime / 1e6));
+        }
+    }
+
+    private static void replaceSequentially(Document doc, int ruleCount) throws Exception {
+        for (int rule = 0; rule < ruleCount; rule++)
+            doc.getRange().replace(getPlaceholder(rule), getValue(rule), new FindReplaceOptions());
+
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++)
+            doc.getRange().replace(PATTERNS[pattern], PATTERN_VALUES[pattern], new FindReplaceOptions());
+    }
+
+    private static BatchReplacer createBatchReplacer(int ruleCount) {
+        BatchReplacer replacer = new BatchReplacer();
+        for (int rule = 0; rule < ruleCount; rule++)
+            replacer.addLiteral(getPlaceholder(rule), getValue(rule));
+
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++)
+            replacer.addPattern(PATTERNS[pattern], PATTERN_VALUES[pattern]);
+        return replacer;
+    }
+
+    private static Document createDocument(int paragraphCount, int ruleCount) throws Exception {
+        Document doc = new Document();
+        DocumentBuilder builder = new DocumentBuilder(doc);
+        for (int i = 0; i < paragraphCount; i++) {
+            builder.writeln("Dear " + getPlaceholder(i % ruleCount) + ", on 2017-05-" + (10 + i % 20)
+                    + " the sad news about " + getPlaceholder((i * 7) % ruleCount) + " reached " + getPlaceholder((i * 13) % ruleCount)
+                    + " at 10:" + (10 + i % 50) + ", (a+b) " + (i % 100) + "% of the time.");
+        }
+
+        return doc;
+    }
+
+    private static String getPlaceholder(int rule) {
+        return "[[Field" + rule + "]]";
+    }
+
+    private static String getValue(int rule) {
+        return "Value " + rule;
+    }
+}
@@ -12,10 +12,21 @@ import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class CompressImages {
@@ -40,10 +51,10 @@ public class CompressImages {
         // Resample images to desired ppi and save.
         int count = Resampler.resample(doc, desiredPpi, jpegQuality);
 
-        System.out.println(MessageFormat.format("Resampled {0} images.", count));
+        System.out.println(MessageFormat.format("Resampled the images of {0} shapes.", count));
 
         if (count != 1)
-            System.out.println("We expected to have only 1 image resampled in this test document!");
+            System.out.println("We expected to have only 1 shape with a resampled image in this test document!");
 
         String dstFileName = srcFileName + ".Resampled Out.docx";
         doc.save(dstFileName);
@@ -75,47 +86,122 @@ class Resampler {
      * @param doc         The document to process.
      * @param desiredPpi  Desired pixels per inch. 220 high quality. 150 screen quality. 96 email quality.
      * @param jpegQuality 0 - 100% JPEG quality.
+     * @return The number of shapes whose image was resampled.
      */
     public static int resample(Document doc, int desiredPpi, int jpegQuality) throws Exception {
-        int count = 0;
+        return resample(doc, desiredPpi, jpegQuality, Runtime.getRuntime().availableProcessors());
+    }
 
-        // Convert VML shapes.
-        for (Shape vmlShape : (Iterable<Shape>) doc.getChildNodes(NodeType.SHAPE, true)) {
+    /**
+     * Resamples the images of the document on the specified number of threads.
+     * <p>
+     * The shapes are visited once to collect the images that need resampling. Images with the same bytes and the same
+     * target size are resampled only once. Decoding, scaling and encoding run on a pool of worker threads, which only
+     * work with copies of the image bytes, while the document itself is read and modified on the calling thread only.
+     *
+     * @param threadCount The number of images resampled at the same time.
+     */
+    public static int resample(Document doc, int desiredPpi, final int jpegQuality, int threadCount) throws Exception {
+        // Collect the images of both VML and DrawingML shapes, grouped by their bytes and target size.
+        LinkedHashMap<String, ResampleJob> jobs = new LinkedHashMap<String, ResampleJob>();
+        for (Shape shape : (Iterable<Shape>) doc.getChildNodes(NodeType.SHAPE, true)) {
             // It is important to use this method to correctly get the picture shape size in points even if the picture is inside a group shape.
-            Point2D.Float shapeSizeInPoints = vmlShape.getSizeInPoints();
+            Point2D.Float shapeSizeInPoints = shape.getSizeInPoints();
 
-            if (resampleCore(vmlShape.getImageData(), shapeSizeInPoints, desiredPpi, jpegQuality))
-                count++;
-        }
+            ResampleJob job = createJob(shape.getImageData(), shapeSizeInPoints, desiredPpi);
+            if (job == null)
+                continue;
 
-        // Convert DrawingML shapes.
-        for (com.aspose.words.Shape dmlShape : (Iterable<com.aspose.words.Shape>) doc.getChildNodes(NodeType.SHAPE, true)) {
-            // In MS Word the size of a DrawingML shape is always in points at the moment.
-            Point2D.Float shapeSizeInPoints = dmlShape.getSizeInPoints();
-            if (resampleCore(dmlShape.getImageData(), shapeSizeInPoints, desiredPpi, jpegQuality))
-                count++;
+            ResampleJob sameJob = jobs.get(job.key);
+            if (sameJob != null) {
+                sameJob.targets.add(shape.getImageData());
+            } else {
+                jobs.put(job.key, job);
+            }
         }
 
-        return count;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            LinkedHashMap<ResampleJob, Future<byte[]>> results = new LinkedHashMap<ResampleJob, Future<byte[]>>();
+            for (final ResampleJob job : jobs.values()) {
+                results.put(job, executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        try {
+                            // ImageIO cannot read every image Aspose.Words can, those images are resampled below.
+                            BufferedImage srcImage;
+                            try {
+                                srcImage = ImageIO.read(new ByteArrayInputStream(job.originalBytes));
+                            } catch (IOException e) {
+                                return null;
+                            }
+                            if (srcImage == null)
+                                return null;
+
+                            return scaleAndEncode(srcImage, job.dstWidthPixels, job.dstHeightPixels, jpegQuality);
+                        } catch (RuntimeException e) {
+                            // ImageIO can also fail this way, e.g. on CMYK or corrupt JPEG data. Keep the original image.
+                            System.out.println("Error processing an image, ignoring. " + e.getMessage());
+                            return UNCHANGED;
+                        }
+                    }
+                }));
+            }
+
+            // Store the results in the shapes, in document order.
+            int count = 0;
+            for (Map.Entry<ResampleJob, Future<byte[]>> result : results.entrySet()) {
+                ResampleJob job = result.getKey();
+                try {
+                    byte[] dstBytes = result.getValue().get();
+                    if (dstBytes == UNCHANGED)
+                        continue;
+
+                    if (dstBytes == null) {
+                        ImageData imageData = job.targets.get(0);
+                        dstBytes = scaleAndEncode(imageData.toImage(), job.dstWidthPixels, job.dstHeightPixels, jpegQuality);
+                    }
+
+                    // If the image saved as JPEG is smaller than the original, store it in the shapes.
+                    if (dstBytes.length < job.originalBytes.length) {
+                        System.out.println(MessageFormat.format("Image PpiX:{0}, PpiY:{1}. Original size {2}, new size {3}.",
+                                job.ppiX, job.ppiY, job.originalBytes.length, dstBytes.length));
+                        for (ImageData imageData : job.targets)
+                            imageData.setImageBytes(dstBytes);
+                        count += job.targets.size();
+                    } else {
+                        System.out.println(MessageFormat.format("Image PpiX:{0}, PpiY:{1}. Skipping, the JPEG is not smaller than the original.",
+                                job.ppiX, job.ppiY));
+                    }
+                } catch (Exception e) {
+                    // Catch an exception, log an error and continue if cannot process one of the images for whatever reason.
+                    Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
+                    System.out.println("Error processing an image, ignoring. " + cause.getMessage());
+                }
+            }
+
+            return count;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     /**
-     * Resamples one VML or DrawingML image
+     * Checks whether one VML or DrawingML image needs resampling and returns the job to do it, or null.
      */
-    private static boolean resampleCore(ImageData imageData, Point2D.Float shapeSizeInPoints, int ppi, int jpegQuality) throws Exception {
+    private static ResampleJob createJob(ImageData imageData, Point2D.Float shapeSizeInPoints, int ppi) throws Exception {
         // The are actually several shape types that can have an image (picture, ole object, ole control), let's skip other shapes.
         if (imageData == null)
-            return false;
+            return null;
 
         // An image can be stored in the shape or linked from somewhere else. Let's skip images that do not store bytes in the shape.
         byte[] originalBytes = imageData.getImageBytes();
         if (originalBytes == null)
-            return false;
+            return null;
 
         // Ignore metafiles, they are vector drawings and we don't want to resample them.
         int imageType = imageData.getImageType();
         if ((imageType == ImageType.WMF) || (imageType == ImageType.EMF))
-            return false;
+            return null;
 
         try {
             double shapeWidthInches = ConvertUtil.pointToInch(shapeSizeInPoints.getX());
@@ -126,49 +212,67 @@ class Resampler {
             double currentPpiX = imageSize.getWidthPixels() / shapeWidthInches;
             double currentPpiY = imageSize.getHeightPixels() / shapeHeightInches;
 
-            System.out.print(MessageFormat.format("Image PpiX:{0}, PpiY:{1}. ", (int) currentPpiX, (int) currentPpiY));
-
             // Let's resample only if the current PPI is higher than the requested PPI (e.g. we have extra data we can get rid of).
             if ((currentPpiX <= ppi) || (currentPpiY <= ppi)) {
-                System.out.println("Skipping.");
-                return false;
+                System.out.println(MessageFormat.format("Image PpiX:{0}, PpiY:{1}. Skipping.", (int) currentPpiX, (int) currentPpiY));
+                return null;
             }
 
-            BufferedImage srcImage = imageData.toImage();
-
             // Create a new image of such size that it will hold only the pixels required by the desired ppi.
-            int dstWidthPixels = (int) (shapeWidthInches * ppi);
-            int dstHeightPixels = (int) (shapeHeightInches * ppi);
-            BufferedImage dstImage = new BufferedImage(dstWidthPixels, dstHeightPixels, getResampledImageType(srcImage.getType()));
-
-            // Drawing the source image to the new image scales it to the new size.
-            Graphics2D g = (Graphics2D) dstImage.getGraphics();
-            try {
-                // Setting any other interpolation or rendering value can increase the time taken extremely.
-                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                g.drawImage(
-                        srcImage,
-                        0, 0, dstWidthPixels, dstHeightPixels,
-                        0, 0, srcImage.getWidth(), srcImage.getHeight(),
-                        null);
-            } finally {
-                g.dispose();
-            }
+            ResampleJob job = new ResampleJob();
+            job.ppiX = (int) currentPpiX;
+            job.ppiY = (int) currentPpiY;
+            job.originalBytes = originalBytes;
+            job.dstWidthPixels = (int) (shapeWidthInches * ppi);
+            job.dstHeightPixels = (int) (shapeHeightInches * ppi);
+            job.key = MessageFormat.format("{0}:{1}x{2}", getContentHash(originalBytes),
+                    Integer.toString(job.dstWidthPixels), Integer.toString(job.dstHeightPixels));
+            job.targets.add(imageData);
+            return job;
+        } catch (Exception e) {
+            // Catch an exception, log an error and continue if cannot process one of the images for whatever reason.
+            System.out.println("Error processing an image, ignoring. " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Scales the image to the specified size and returns it encoded as JPEG with the quality setting.
+     * Only local objects are used, so images can be processed on several threads at the same time.
+     */
+    private static byte[] scaleAndEncode(BufferedImage srcImage, int dstWidthPixels, int dstHeightPixels, int jpegQuality) throws Exception {
+        BufferedImage dstImage = new BufferedImage(dstWidthPixels, dstHeightPixels, getResampledImageType(srcImage.getType()));
+
+        // Drawing the source image to the new image scales it to the new size.
+        Graphics2D g = (Graphics2D) dstImage.getGraphics();
+        try {
+            // Setting any other interpolation or rendering value can increase the time taken extremely.
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            g.drawImage(
+                    srcImage,
+                    0, 0, dstWidthPixels, dstHeightPixels,
+                    0, 0, srcImage.getWidth(), srcImage.getHeight(),
+                    null);
+        } finally {
+            g.dispose();
+        }
 
 
-            // Create JPEG encoder parameters with the quality setting.
-            Iterator writers = ImageIO.getImageWritersByFormatName("jpeg");
-            ImageWriter writer = (ImageWriter) writers.next();
-            ImageWriteParam param = writer.getDefaultWriteParam();
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(jpegQuality / 100.0f);
+        // Create JPEG encoder parameters with the quality setting.
+        Iterator writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = (ImageWriter) writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality / 100.0f);
 
-            // Save the image as JPEG to a memory stream.
-            ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
-            ImageOutputStream ios = ImageIO.createImageOutputStream(dstStream);
+        // Save the image as JPEG to a memory stream.
+        ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
+        ImageOutputStream ios = ImageIO.createImageOutputStream(dstStream);
+        try {
             writer.setOutput(ios);
 
             IIOImage ioImage = new IIOImage(dstImage, null, null);
@@ -176,21 +280,24 @@ class Resampler {
 
             // This is required, otherwise not all data might be written to our stream.
             ios.flush();
+        } finally {
             // The Java documentation recommends disposing image readers and writers asap.
             writer.dispose();
-
-            // If the image saved as JPEG is smaller than the original, store it in the shape.
-            System.out.println(MessageFormat.format("Original size {0}, new size {1}.", originalBytes.length, dstStream.size()));
-            if (dstStream.size() < originalBytes.length) {
-                imageData.setImageBytes(dstStream.toByteArray());
-                return true;
-            }
-        } catch (Exception e) {
-            // Catch an exception, log an error and continue if cannot process one of the images for whatever reason.
-            System.out.println("Error processing an image, ignoring. " + e.getMessage());
+            ios.close();
         }
 
-        return false;
+        return dstStream.toByteArray();
+    }
+
+    /**
+     * Returns the SHA-1 digest of the image bytes as a hex string.
+     */
+    private static String getContentHash(byte[] bytes) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+        StringBuilder hash = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hash.toString();
     }
 
     private static int getResampledImageType(int srcImageType) {
@@ -214,5 +321,23 @@ class Resampler {
                 return srcImageType;
         }
     }
+
+    /**
+     * Returned by a worker for an image that could not be processed and is left as it is.
+     */
+    private static final byte[] UNCHANGED = new byte[0];
+
+    /**
+     * An image to resample together with all the shapes which have the same image at the same size.
+     */
+    private static class ResampleJob {
+        private String key;
+        private byte[] originalBytes;
+        private int dstWidthPixels;
+        private int dstHeightPixels;
+        private int ppiX;
+        private int ppiY;
+        private final ArrayList<ImageData> targets = new ArrayList<ImageData>();
+    }
 }
 //ExEnd:Resampler
\ No newline at end of file
@@ -3,6 +3,21 @@ package com.aspose.words.examples.programming_documents.images;
 import com.aspose.words.*;
 import com.aspose.words.examples.Utils;
 
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 
 public class ExtractImagesToFiles {
     public static void main(String[] args) throws Exception {
@@ -25,5 +40,246 @@ public class ExtractImagesToFiles {
             }
         }
         //ExEnd:ExtractImagesToFiles
+
+        extractUniqueImagesToFiles(dataDir);
+    }
+
+    public static void extractUniqueImagesToFiles(String dataDir) throws Exception {
+        //ExStart:ExtractUniqueImagesToFiles
+        // Every distinct image is written once to the store, named after the hash of its bytes, no matter how many
+        // shapes or documents contain it. The store can be shared by any number of runs.
+        File storeDir = new File(dataDir, "ImageStore");
+        ImageStore store = new ImageStore(storeDir);
+
+        // Several documents can be extracted at a time with extractImages(File[], int).
+        List<ImageManifestEntry> manifest = store.extractImages(new Document(dataDir + "Image.SampleImages.doc"), "Image.SampleImages.doc");
+
+        System.out.println("Extracted " + manifest.size() + " images into " + ImageManifestEntry.countFiles(manifest) + " files.");
+
+        // The manifest tells which image file belongs to every image shape of every document.
+        ImageManifestEntry.write(manifest, new File(storeDir, "manifest.txt"));
+        //ExEnd:ExtractUniqueImagesToFiles
+    }
+}
+
+//ExStart:ImageStore
+
+/**
+ * A directory of images addressed by content. The name of every image file is the SHA-256 digest of the image bytes
+ * followed by the extension of the image type, so an image is written only once however often it occurs, and images
+ * written by earlier runs are reused.
+ * <p>
+ * Documents can be extracted on several threads at the same time. Files are written under a temporary name and then
+ * renamed, so a file with a digest name is always complete, even when several processes share the store.
+ */
+class ImageStore {
+    public ImageStore(File storeDir) throws Exception {
+        storeDir.mkdirs();
+        mStoreDir = storeDir;
+    }
+
+    /**
+     * Loads the documents on the specified number of threads and stores the images of all of them.
+     * The manifest entries are returned in the order of the documents.
+     */
+    public List<ImageManifestEntry> extractImages(File[] files, int threadCount) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            ArrayList<Future<List<ImageManifestEntry>>> documents = new ArrayList<Future<List<ImageManifestEntry>>>();
+            for (final File file : files) {
+                documents.add(executor.submit(new Callable<List<ImageManifestEntry>>() {
+                    public List<ImageManifestEntry> call() throws Exception {
+                        return extractImages(new Document(file.getAbsolutePath()), file.getName());
+                    }
+                }));
+            }
+
+            ArrayList<ImageManifestEntry> manifest = new ArrayList<ImageManifestEntry>();
+            try {
+                for (Future<List<ImageManifestEntry>> document : documents)
+                    manifest.addAll(document.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+
+            return manifest;
+        } finally {
+            executor.shutdownNow();
+        }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stores the images of all shapes in the document and returns a manifest entry for every image shape.
+     */
+    public List<ImageManifestEntry> extractImages(Document doc, String documentName) throws Exception {
+        ArrayList<ImageManifestEntry> manifest = new ArrayList<ImageManifestEntry>();
+
+        int shapeIndex = 0;
+        for (Shape shape : (Iterable<Shape>) doc.getChildNodes(NodeType.SHAPE, true)) {
+            if (shape.hasImage()) {
+                String fileName = store(shape.getImageData());
+                manifest.add(new ImageManifestEntry(documentName, shapeIndex, shape.getName(), fileName));
+            }
+
+            shapeIndex++;
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Writes the image unless the store already has it, and returns the name of its file in the store.
+     */
+    public String store(ImageData imageData) throws Exception {
+        // The digest is computed over the bytes as they are, the same array is written if the image is new.
+        byte[] imageBytes = imageData.getImageBytes();
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(imageBytes);
+        String fileName = toHex(digest.digest()) + FileFormatUtil.imageTypeToExtension(imageData.getImageType());
+
+        StoredImage image = new StoredImage();
+        StoredImage existingImage = mImages.putIfAbsent(fileName, image);
+        if (existingImage != null)
+            image = existingImage;
+
+        if (!image.mIsWritten) {
+            // Only one thread writes an image, the others wait for it to finish.
+            synchronized (image) {
+                if (!image.mIsWritten) {
+                    File file = new File(mStoreDir, fileName);
+                    if (!file.exists())
+                        write(imageBytes, file);
+                    image.mIsWritten = true;
+                }
+            }
+        }
+
+        return fileName;
+    }
+
+    private void write(byte[] bytes, File file) throws Exception {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", mStoreDir);
+        try {
+            OutputStream stream = new FileOutputStream(tempFile);
+            try {
+                stream.write(bytes);
+            } finally {
+                stream.close();
+            }
+
+            // Another process may have stored the same image in the meantime, its file has the same content.
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+    /**
+     * Tracks whether the file of an image has been written during this run.
+     */
+    private static class StoredImage {
+        private volatile boolean mIsWritten;
+    }
+
+    private final File mStoreDir;
+    private final ConcurrentHashMap<String, StoredImage> mImages = new ConcurrentHashMap<String, StoredImage>();
+}
+//ExEnd:ImageStore
+
+//ExStart:ImageManifestEntry
+
+/**
+ * Tells which file of the image store holds the image of a shape.
+ */
+class ImageManifestEntry {
+    public ImageManifestEntry(String documentName, int shapeIndex, String shapeName, String fileName) {
+        mDocumentName = documentName;
+        mShapeIndex = shapeIndex;
+        mShapeName = shapeName;
+        mFileName = fileName;
+    }
+
+    /**
+     * Returns the number of distinct image files the entries refer to.
+     */
+    public static int countFiles(List<ImageManifestEntry> entries) {
+        HashSet<String> fileNames = new HashSet<String>();
+        for (ImageManifestEntry entry : entries)
+            fileNames.add(entry.mFileName);
+        return fileNames.size();
+    }
+
+    /**
+     * Writes the entries as tab separated lines of document name, shape index, shape name and image file name.
+     * The shape index is the index of the shape among all shapes of the document. Backslashes, tabs and line breaks
+     * in the names are written as \\, \t, \n and \r.
+     */
+    public static void write(List<ImageManifestEntry> entries, File file) throws Exception {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8")));
+        try {
+            writer.write("Document\tShapeIndex\tShapeName\tImageFile\n");
+            for (ImageManifestEntry entry : entries) {
+                writer.write(escape(entry.mDocumentName) + "\t" + entry.mShapeIndex + "\t" + escape(entry.mShapeName) + "\t"
+                        + escape(entry.mFileName) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String escape(String field) {
+        if (field == null)
+            return "";
+
+        StringBuilder escaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    public String getDocumentName() {
+        return mDocumentName;
+    }
+
+    public int getShapeIndex() {
+        return mShapeIndex;
+    }
+
+    public String getShapeName() {
+        return mShapeName;
+    }
+
+    public String getFileName() {
+        return mFileName;
+    }
+
+    private final String mDocumentName;
+    private final int mShapeIndex;
+    private final String mShapeName;
+    private final String mFileName;
+}
+//ExEnd:ImageManifestEntry
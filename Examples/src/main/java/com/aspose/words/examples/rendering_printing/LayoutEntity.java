@@ -0,0 +1,868 @@
+package com.aspose.words.examples.rendering_printing;
+
+import com.aspose.words.*;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+
+/**
+ * Provides the base class for rendered elements of a document.
+ * <p>
+ * Entities are lightweight views over a {@link LayoutStore} which keeps the data of all entities of a document in
+ * parallel arrays. A view only holds the store and the index of its entity.
+ */
+public class LayoutEntity {
+    protected LayoutEntity() {
+    }
+
+    /**
+     * Gets the 1-based index of a page which contains the rendered entity.
+     */
+    public final int getPageIndex() {
+        return mStore.getPageIndex(mIndex);
+    }
+
+    /**
+     * Returns bounding rectangle of the entity relative to the page top left corner (in points).
+     */
+    public final Rectangle2D getRectangle() {
+        return mStore.getRectangle(mIndex);
+    }
+
+    /**
+     * Gets the type of this layout entity.
+     */
+    public final int getType() //LayoutEntityType
+    {
+        return mStore.getType(mIndex);
+    }
+
+    /**
+     * Exports the contents of the entity into a string in plain text format.
+     */
+    public String getText() {
+        StringBuilder builder = new StringBuilder();
+        ensureChildEntities();
+        for (int child = mStore.getFirstChild(mIndex); child != LayoutStore.NONE; child = mStore.getNextSibling(child)) {
+            builder.append(mStore.getEntity(child).getText());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Gets the immediate parent of this entity.
+     */
+    public final LayoutEntity getParent() {
+        int parent = mStore.getParent(mIndex);
+        return parent == LayoutStore.NONE ? null : mStore.getEntity(parent);
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     * <p>
+     * This property may return null for spans that originate from Run nodes or nodes that are inside the header or footer.
+     */
+    public Node getParentNode() {
+        return mStore.getParentNode(mIndex);
+    }
+
+    public void setParentNode(Node value) {
+        mStore.setParentNode(mIndex, value);
+    }
+
+    /**
+     * Reserved for internal use.
+     */
+    public final Object getLayoutObject() {
+        return mStore.getLayoutObject(mIndex);
+    }
+
+    public final void setLayoutObject(Object value) {
+        mStore.setLayoutObject(mIndex, value);
+    }
+
+    /**
+     * Reserved for internal use.
+     *
+     * @throws Exception
+     */
+    public final LayoutEntity AddChildEntity(LayoutEnumerator it) throws Exception {
+        return mStore.getEntity(mStore.add(mIndex, it));
+    }
+
+    /**
+     * Returns a collection of child entities which match the specified type.
+     */
+
+    public static <E> Collection<E> makeCollection(Iterable<E> iter) {
+        Collection<E> list = new java.util.ArrayList<E>();
+        for (E item : iter) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    public final LayoutCollection<LayoutEntity> GetChildEntities(int type, boolean isDeep) {
+        ensureChildEntities();
+        if (mStore.getFirstChild(mIndex) == LayoutStore.NONE) {
+            return LayoutCollection.empty();
+        }
+
+        // Types are matched against the store, so views are only created for the entities which are returned.
+        java.util.ArrayList<LayoutEntity> childList = new java.util.ArrayList<LayoutEntity>();
+        collectChildEntities(mIndex, type, isDeep, childList);
+        return new LayoutCollection<LayoutEntity>(childList);
+    }
+
+    private void collectChildEntities(int index, int type, boolean isDeep, java.util.ArrayList<LayoutEntity> childList) {
+        for (int child = mStore.getFirstChild(index); child != LayoutStore.NONE; child = mStore.getNextSibling(child)) {
+            int childType = mStore.getType(child);
+            if ((childType & type) == childType) {
+                childList.add(mStore.getEntity(child));
+            }
+
+            if (isDeep) {
+                if (childType == LayoutEntityType.PAGE) {
+                    mStore.getEntity(child).ensureChildEntities();
+                }
+
+                collectChildEntities(child, type, true, childList);
+            }
+        }
+    }
+
+    /**
+     * Returns the immediate child entities of the specified type, as views of the class the store creates for it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends LayoutEntity> LayoutCollection<T> GetChildNodes(int type) {
+        ensureChildEntities();
+        java.util.ArrayList<T> childList = null;
+        for (int child = mStore.getFirstChild(mIndex); child != LayoutStore.NONE; child = mStore.getNextSibling(child)) {
+            if (mStore.getType(child) == type) {
+                if (childList == null) {
+                    childList = new java.util.ArrayList<T>();
+                }
+                childList.add((T) mStore.getEntity(child));
+            }
+        }
+
+        return childList == null ? LayoutCollection.<T>empty() : new LayoutCollection<T>(childList);
+    }
+
+    /**
+     * Returns the immediate child entities.
+     */
+    protected final java.util.ArrayList<LayoutEntity> getChildEntityList() {
+        ensureChildEntities();
+        java.util.ArrayList<LayoutEntity> childList = new java.util.ArrayList<LayoutEntity>();
+        for (int child = mStore.getFirstChild(mIndex); child != LayoutStore.NONE; child = mStore.getNextSibling(child)) {
+            childList.add(mStore.getEntity(child));
+        }
+
+        return childList;
+    }
+
+    /**
+     * Gives entities which build their children on demand a chance to do so before the children are accessed.
+     */
+    protected void ensureChildEntities() {
+    }
+
+    /**
+     * Binds the view to an entity of the store.
+     */
+    final void attach(LayoutStore store, int index) {
+        mStore = store;
+        mIndex = index;
+    }
+
+    protected final String getKindCore() {
+        return mStore.getKind(mIndex);
+    }
+
+    protected LayoutStore mStore;
+    protected int mIndex;
+}
+
+
+//////////////////////////////////////
+
+/**
+ * Represents a generic collection of layout entity types.
+ */
+class LayoutCollection<T> implements Iterable<T> // extends LayoutEntity>
+{
+    /**
+     * Reserved for internal use.
+     */
+    public LayoutCollection(java.util.ArrayList<T> baseList) {
+        mBaseList = baseList;
+    }
+
+    /**
+     * Returns a shared collection without entities.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LayoutCollection<T> empty() {
+        return (LayoutCollection<T>) EMPTY;
+    }
+
+    private static final LayoutCollection<Object> EMPTY = new LayoutCollection<Object>(new java.util.ArrayList<Object>(0));
+
+    /**
+     * Provides a simple "foreach" style iteration over the collection of nodes.
+     */
+    public final java.util.Iterator GetEnumerator() {
+        return mBaseList.iterator();
+    }
+
+    /**
+     * Provides a simple "foreach" style iteration over the collection of nodes.
+     */
+    public final java.util.Iterator<T> iterator() {
+        return mBaseList.iterator();
+    }
+
+    /**
+     * Returns the first entity in the collection.
+     */
+    public final T getFirst() {
+        if (mBaseList.size() > 0) {
+            return mBaseList.get(0);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the last entity in the collection.
+     */
+    public final T getLast() {
+        if (mBaseList.size() > 0) {
+            return mBaseList.get(mBaseList.size() - 1);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the entity at the given index.
+     * <p>
+     * <p>The index is zero-based.</p>
+     * <p>If index is greater than or equal to the number of items in the list, this returns a null reference.</p>
+     */
+    public final T getItem(int index) {
+        return mBaseList.get(index);
+    }
+
+    /**
+     * Gets the number of entities in the collection.
+     */
+    public final int getCount() {
+        return mBaseList.size();
+    }
+
+    private java.util.ArrayList<T> mBaseList;
+}
+
+/**
+ * Keeps the data of all layout entities of a rendered document in parallel arrays indexed by entity.
+ * <p>
+ * Children are linked through first child/next sibling indexes, so entities added later, e.g. the children of a page
+ * which is loaded on demand, do not have to be contiguous. Views of the entities are created on first access.
+ */
+class LayoutStore {
+    static final int NONE = -1;
+
+    /**
+     * Adds the root entity of the store, which has no parent.
+     *
+     * @return index of the root entity.
+     */
+    public int addRoot(LayoutEntity root) {
+        int index = allocate(NONE);
+        mEntities[index] = root;
+        return index;
+    }
+
+    /**
+     * Appends the entity the enumerator is positioned at to the children of the specified parent.
+     *
+     * @return index of the new entity.
+     */
+    public int add(int parent, LayoutEnumerator it) throws Exception {
+        int index = allocate(parent);
+        int type = it.getType();
+        mTypes[index] = type;
+        mPageIndexes[index] = it.getPageIndex();
+        mKinds[index] = intern(it.getKind());
+        mLayoutObjects[index] = it.getCurrent();
+
+        Rectangle2D rectangle = it.getRectangle();
+        int offset = index * 4;
+        mBounds[offset] = (float) rectangle.getX();
+        mBounds[offset + 1] = (float) rectangle.getY();
+        mBounds[offset + 2] = (float) rectangle.getWidth();
+        mBounds[offset + 3] = (float) rectangle.getHeight();
+
+        if (type == LayoutEntityType.SPAN) {
+            mTexts[index] = it.getText();
+        }
+
+        if (mLastChildren[parent] == NONE) {
+            mFirstChildren[parent] = index;
+        } else {
+            mNextSiblings[mLastChildren[parent]] = index;
+        }
+        mLastChildren[parent] = index;
+
+        return index;
+    }
+
+    /**
+     * Returns the view of the specified entity, creating it on first access.
+     */
+    public LayoutEntity getEntity(int index) {
+        LayoutEntity entity = mEntities[index];
+        if (entity == null) {
+            entity = createEntity(mTypes[index]);
+            entity.attach(this, index);
+            mEntities[index] = entity;
+        }
+
+        return entity;
+    }
+
+    public int getType(int index) {
+        return mTypes[index];
+    }
+
+    public int getPageIndex(int index) {
+        return mPageIndexes[index];
+    }
+
+    public String getKind(int index) {
+        return mKinds[index];
+    }
+
+    public String getText(int index) {
+        return mTexts[index];
+    }
+
+    public Rectangle2D getRectangle(int index) {
+        int offset = index * 4;
+        return new Rectangle2D.Float(mBounds[offset], mBounds[offset + 1], mBounds[offset + 2], mBounds[offset + 3]);
+    }
+
+    public float getLeft(int index) {
+        return mBounds[index * 4];
+    }
+
+    public float getTop(int index) {
+        return mBounds[index * 4 + 1];
+    }
+
+    public float getRight(int index) {
+        return mBounds[index * 4] + mBounds[index * 4 + 2];
+    }
+
+    public float getBottom(int index) {
+        return mBounds[index * 4 + 1] + mBounds[index * 4 + 3];
+    }
+
+    public int getParent(int index) {
+        return mParents[index];
+    }
+
+    public int getFirstChild(int index) {
+        return mFirstChildren[index];
+    }
+
+    public int getNextSibling(int index) {
+        return mNextSiblings[index];
+    }
+
+    public Node getParentNode(int index) {
+        return mParentNodes[index];
+    }
+
+    public void setParentNode(int index, Node node) {
+        mParentNodes[index] = node;
+    }
+
+    public Object getLayoutObject(int index) {
+        return mLayoutObjects[index];
+    }
+
+    public void setLayoutObject(int index, Object value) {
+        mLayoutObjects[index] = value;
+    }
+
+    private int allocate(int parent) {
+        if (mCount == mTypes.length) {
+            grow(mCount * 2);
+        }
+
+        int index = mCount++;
+        mParents[index] = parent;
+        mFirstChildren[index] = NONE;
+        mLastChildren[index] = NONE;
+        mNextSiblings[index] = NONE;
+        return index;
+    }
+
+    private void grow(int capacity) {
+        mTypes = java.util.Arrays.copyOf(mTypes, capacity);
+        mPageIndexes = java.util.Arrays.copyOf(mPageIndexes, capacity);
+        mBounds = java.util.Arrays.copyOf(mBounds, capacity * 4);
+        mParents = java.util.Arrays.copyOf(mParents, capacity);
+        mFirstChildren = java.util.Arrays.copyOf(mFirstChildren, capacity);
+        mLastChildren = java.util.Arrays.copyOf(mLastChildren, capacity);
+        mNextSiblings = java.util.Arrays.copyOf(mNextSiblings, capacity);
+        mKinds = java.util.Arrays.copyOf(mKinds, capacity);
+        mTexts = java.util.Arrays.copyOf(mTexts, capacity);
+        mLayoutObjects = java.util.Arrays.copyOf(mLayoutObjects, capacity);
+        mParentNodes = java.util.Arrays.copyOf(mParentNodes, capacity);
+        mEntities = java.util.Arrays.copyOf(mEntities, capacity);
+    }
+
+    /**
+     * Kinds repeat for almost every entity, so a document keeps a single instance of each.
+     */
+    private String intern(String kind) {
+        String interned = mKindPool.get(kind);
+        if (interned == null) {
+            mKindPool.put(kind, kind);
+            interned = kind;
+        }
+
+        return interned;
+    }
+
+    private static LayoutEntity createEntity(int type) {
+        switch (type) {
+            case LayoutEntityType.CELL:
+                return new RenderedCell();
+            case LayoutEntityType.COLUMN:
+                return new RenderedColumn();
+            case LayoutEntityType.COMMENT:
+                return new RenderedComment();
+            case LayoutEntityType.ENDNOTE:
+                return new RenderedEndnote();
+            case LayoutEntityType.FOOTNOTE:
+                return new RenderedFootnote();
+            case LayoutEntityType.HEADER_FOOTER:
+                return new RenderedHeaderFooter();
+            case LayoutEntityType.LINE:
+                return new RenderedLine();
+            case LayoutEntityType.NOTE_SEPARATOR:
+                return new RenderedNoteSeparator();
+            case LayoutEntityType.PAGE:
+                return new RenderedPage();
+            case LayoutEntityType.ROW:
+                return new RenderedRow();
+            case LayoutEntityType.SPAN:
+                return new RenderedSpan();
+            case LayoutEntityType.TEXT_BOX:
+                return new RenderedTextBox();
+            default:
+                // Layout entity types added in later versions get a generic view instead of failing to load the page.
+                return new LayoutEntity();
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int mCount;
+    private int[] mTypes = new int[INITIAL_CAPACITY];
+    private int[] mPageIndexes = new int[INITIAL_CAPACITY];
+    private float[] mBounds = new float[INITIAL_CAPACITY * 4];
+    private int[] mParents = new int[INITIAL_CAPACITY];
+    private int[] mFirstChildren = new int[INITIAL_CAPACITY];
+    private int[] mLastChildren = new int[INITIAL_CAPACITY];
+    private int[] mNextSiblings = new int[INITIAL_CAPACITY];
+    private String[] mKinds = new String[INITIAL_CAPACITY];
+    private String[] mTexts = new String[INITIAL_CAPACITY];
+    private Object[] mLayoutObjects = new Object[INITIAL_CAPACITY];
+    private Node[] mParentNodes = new Node[INITIAL_CAPACITY];
+    private LayoutEntity[] mEntities = new LayoutEntity[INITIAL_CAPACITY];
+    private java.util.HashMap<String, String> mKindPool = new java.util.HashMap<String, String>();
+}
+
+/**
+ * Represents an entity that contains lines and rows.
+ */
+class StoryLayoutEntity extends LayoutEntity {
+    /**
+     * Provides access to the lines of a story.
+     */
+    public final LayoutCollection<RenderedLine> getLines() {
+        return GetChildNodes(LayoutEntityType.LINE);
+    }
+
+    /**
+     * Provides access to the row entities of a table.
+     */
+    public final LayoutCollection<RenderedRow> getRows() {
+        return GetChildNodes(LayoutEntityType.ROW);
+    }
+
+    /**
+     * Returns the paragraph of the first line, or null if the story has no lines or its first line has no paragraph.
+     */
+    final Paragraph getFirstParagraph() {
+        RenderedLine line = getLines().getFirst();
+        return line == null ? null : line.getParagraph();
+    }
+
+    /**
+     * Returns the ancestor of the specified type of the paragraph of the first line, or null if there is none.
+     */
+    final Node getFirstParagraphAncestor(int nodeType) {
+        Paragraph paragraph = getFirstParagraph();
+        return paragraph == null ? null : paragraph.getAncestor(nodeType);
+    }
+}
+
+/**
+ * Represents line of characters of text and inline objects.
+ */
+class RenderedLine extends LayoutEntity {
+    /**
+     * Exports the contents of the entity into a string in plain text format.
+     */
+    @Override
+    public String getText() {
+        return super.getText() + "\n";
+    }
+
+    /**
+     * Returns the paragraph that corresponds to the layout entity.
+     * <p>
+     * This property may return null for some lines such as those inside the header or footer.
+     */
+    public final Paragraph getParagraph() {
+        return (Paragraph) getParentNode();
+    }
+
+    /**
+     * Provides access to the spans of the line.
+     */
+    public final LayoutCollection<RenderedSpan> getSpans() {
+        return GetChildNodes(LayoutEntityType.SPAN);
+    }
+}
+
+/**
+ * Represents one or more characters in a line.
+ * This include special characters like field start/end markers, bookmarks and comments.
+ */
+class RenderedSpan extends LayoutEntity {
+    public RenderedSpan() {
+    }
+
+    /**
+     * Gets kind of the span. This cannot be null.
+     * <p>
+     * This is a more specific type of the current entity, e.g. bookmark span has Span type and
+     * may have either a BOOKMARKSTART or BOOKMARKEND kind.
+     */
+    public final String getKind() {
+        return getKindCore();
+    }
+
+    /**
+     * Exports the contents of the entity into a string in plain text format.
+     */
+    @Override
+    public String getText() {
+        return mStore.getText(mIndex);
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     * <p>
+     * This property returns null for spans that originate from Run nodes or nodes that are inside the header or footer.
+     */
+    @Override
+    public Node getParentNode() {
+        return mStore.getParentNode(mIndex);
+    }
+}
+
+/**
+ * Represents the header/footer content on a page.
+ */
+class RenderedHeaderFooter extends StoryLayoutEntity {
+    /**
+     * Returns the type of the header or footer.
+     */
+    public final String getKind() {
+        return getKindCore();
+    }
+}
+
+/**
+ * Represents page of a document.
+ */
+class RenderedPage extends LayoutEntity {
+    /**
+     * Defers building of the child entities until they are first accessed.
+     */
+    final void setPageLoader(RenderedDocument loader) {
+        mPageLoader = loader;
+    }
+
+    @Override
+    protected void ensureChildEntities() {
+        if (mPageLoader != null) {
+            RenderedDocument loader = mPageLoader;
+            mPageLoader = null;
+            loader.LoadPage(this);
+        }
+    }
+
+    /**
+     * Provides access to the columns of the page.
+     */
+    public final LayoutCollection<RenderedColumn> getColumns() {
+        return GetChildNodes(LayoutEntityType.COLUMN);
+    }
+
+    /**
+     * Provides access to the header and footers of the page.
+     */
+    public final LayoutCollection<RenderedHeaderFooter> getHeaderFooters() {
+        return GetChildNodes(LayoutEntityType.HEADER_FOOTER);
+    }
+
+    /**
+     * Provides access to the comments of the page.
+     */
+    public final LayoutCollection<RenderedComment> getComments() {
+        return GetChildNodes(LayoutEntityType.COMMENT);
+    }
+
+    /**
+     * Returns the section that corresponds to the layout entity.
+     */
+    public final Section getSection() {
+        return (Section) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        RenderedColumn column = getColumns().getFirst();
+        Paragraph paragraph = column == null ? null : column.getFirstParagraph();
+        return paragraph == null ? null : paragraph.getParentSection();
+    }
+
+    private RenderedDocument mPageLoader;
+}
+
+/**
+ * Represents a table row.
+ */
+class RenderedRow extends LayoutEntity {
+    /**
+     * Provides access to the cells of the row.
+     */
+    public final LayoutCollection<RenderedCell> getCells() {
+        return GetChildNodes(LayoutEntityType.CELL);
+    }
+
+    /**
+     * Returns the row that corresponds to the layout entity.
+     * <p>
+     * This property may return null for some rows such as those inside the header or footer.
+     */
+    public final Row getRow() {
+        return (Row) getParentNode();
+    }
+
+    /**
+     * Returns the table that corresponds to the layout entity.
+     * <p>
+     * This property may return null for some tables such as those inside the header or footer.
+     */
+    public final Table getTable() {
+        return getRow().getParentTable();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     * <p>
+     * This property may return null for nodes that are inside the header or footer.
+     */
+    @Override
+    public Node getParentNode() {
+        RenderedCell cell = getCells().getFirst();
+        return cell == null ? null : cell.getFirstParagraphAncestor(NodeType.ROW);
+    }
+}
+
+/**
+ * Represents a column of text on a page.
+ */
+class RenderedColumn extends StoryLayoutEntity {
+    /**
+     * Provides access to the footnotes of the page.
+     */
+    public final LayoutCollection<RenderedFootnote> getFootnotes() {
+        return GetChildNodes(LayoutEntityType.FOOTNOTE);
+    }
+
+    /**
+     * Provides access to the endnotes of the page.
+     */
+    public final LayoutCollection<RenderedEndnote> getEndnotes() {
+        return GetChildNodes(LayoutEntityType.ENDNOTE);
+    }
+
+    /**
+     * Provides access to the note separators of the page.
+     */
+    public final LayoutCollection<RenderedNoteSeparator> getNoteSeparators() {
+        return GetChildNodes(LayoutEntityType.NOTE_SEPARATOR);
+    }
+
+    /**
+     * Returns the body that corresponds to the layout entity.
+     */
+    public final Body getBody() {
+        return (Body) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        Paragraph paragraph = getFirstParagraph();
+        return paragraph == null ? null : paragraph.getParentSection().getBody();
+    }
+}
+
+/**
+ * Represents a table cell.
+ */
+class RenderedCell extends StoryLayoutEntity {
+    /**
+     * Returns the cell that corresponds to the layout entity.
+     * <p>
+     * This property may return null for some cells such as those inside the header or footer.
+     */
+    public final Cell getCell() {
+        return (Cell) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     * <p>
+     * This property may return null for nodes that are inside the header or footer.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.CELL);
+    }
+}
+
+/**
+ * Represents placeholder for footnote content.
+ */
+class RenderedFootnote extends StoryLayoutEntity {
+    /**
+     * Returns the footnote that corresponds to the layout entity.
+     */
+    public final Footnote getFootnote() {
+        return (Footnote) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.FOOTNOTE);
+    }
+}
+
+/**
+ * Represents placeholder for endnote content.
+ */
+class RenderedEndnote extends StoryLayoutEntity {
+    /**
+     * Returns the endnote that corresponds to the layout entity.
+     */
+    public final Footnote getEndnote() {
+        return (Footnote) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.FOOTNOTE);
+    }
+}
+
+/**
+ * Represents text area inside of a shape.
+ */
+class RenderedTextBox extends StoryLayoutEntity {
+    /**
+     * Returns the Shape or DrawingML that corresponds to the layout entity.
+     * <p>
+     * This property may return null for some Shapes or DrawingML such as those inside the header or footer.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.SHAPE);
+    }
+}
+
+/**
+ * Represents placeholder for comment content.
+ */
+class RenderedComment extends StoryLayoutEntity {
+    /**
+     * Returns the comment that corresponds to the layout entity.
+     */
+    public final Comment getComment() {
+        return (Comment) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.COMMENT);
+    }
+}
+
+/**
+ * Represents footnote/endnote separator.
+ */
+class RenderedNoteSeparator extends StoryLayoutEntity {
+    /**
+     * Returns the footnote/endnote that corresponds to the layout entity.
+     */
+    public final Footnote getFootnote() {
+        return (Footnote) getParentNode();
+    }
+
+    /**
+     * Returns the node that corresponds to this layout entity.
+     */
+    @Override
+    public Node getParentNode() {
+        return getFirstParagraphAncestor(NodeType.FOOTNOTE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.aspose.words.examples.rendering_printing;
+
+import com.aspose.words.LayoutEntityType;
+import com.aspose.words.Node;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Grid index over the lines and spans of a rendered page for hit-testing and region queries.
+ * <p>
+ * The page is divided into square cells and every line and span is registered in each cell its rectangle overlaps,
+ * so a query only tests the entities of the cells it touches instead of walking the page.
+ * Results are returned in layout order. Queries of one index must not run concurrently.
+ */
+public class LayoutSpatialIndex {
+    /**
+     * Builds the index of the specified page.
+     *
+     * @param page     The page whose lines and spans to index.
+     * @param cellSize Size of a grid cell in points.
+     */
+    LayoutSpatialIndex(RenderedPage page, float cellSize) {
+        mStore = page.mStore;
+        mCellSize = cellSize;
+
+        Rectangle2D pageRectangle = page.getRectangle();
+        mColumns = Math.max(1, (int) Math.ceil(pageRectangle.getWidth() / cellSize));
+        mRows = Math.max(1, (int) Math.ceil(pageRectangle.getHeight() / cellSize));
+
+        // Collect the entities in layout order, then count the entities of each cell before filling it.
+        page.ensureChildEntities();
+        IntList entities = new IntList();
+        collectEntities(page.mIndex, entities);
+        mEntities = entities.toArray();
+        mVisited = new int[mEntities.length];
+
+        int[] cellSizes = new int[mColumns * mRows];
+        for (int i = 0; i < mEntities.length; i++) {
+            int entity = mEntities[i];
+            for (int row = getRow(mStore.getTop(entity)); row <= getRow(mStore.getBottom(entity)); row++) {
+                for (int column = getColumn(mStore.getLeft(entity)); column <= getColumn(mStore.getRight(entity)); column++) {
+                    cellSizes[row * mColumns + column]++;
+                }
+            }
+        }
+
+        mCells = new int[cellSizes.length][];
+        for (int cell = 0; cell < cellSizes.length; cell++) {
+            mCells[cell] = new int[cellSizes[cell]];
+            cellSizes[cell] = 0;
+        }
+
+        for (int i = 0; i < mEntities.length; i++) {
+            int entity = mEntities[i];
+            for (int row = getRow(mStore.getTop(entity)); row <= getRow(mStore.getBottom(entity)); row++) {
+                for (int column = getColumn(mStore.getLeft(entity)); column <= getColumn(mStore.getRight(entity)); column++) {
+                    int cell = row * mColumns + column;
+                    mCells[cell][cellSizes[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the spans which contain the specified point (in points, relative to the page top left corner).
+     */
+    public final LayoutCollection<RenderedSpan> getSpansAt(double x, double y) {
+        return this.<RenderedSpan>query(x, y, x, y, LayoutEntityType.SPAN);
+    }
+
+    /**
+     * Returns the lines which contain the specified point (in points, relative to the page top left corner).
+     */
+    public final LayoutCollection<RenderedLine> getLinesAt(double x, double y) {
+        return this.<RenderedLine>query(x, y, x, y, LayoutEntityType.LINE);
+    }
+
+    /**
+     * Returns the spans which intersect the specified rectangle (in points, relative to the page top left corner).
+     */
+    public final LayoutCollection<RenderedSpan> getSpansIn(Rectangle2D rectangle) {
+        return this.<RenderedSpan>query(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY(), LayoutEntityType.SPAN);
+    }
+
+    /**
+     * Returns the lines which intersect the specified rectangle (in points, relative to the page top left corner).
+     */
+    public final LayoutCollection<RenderedLine> getLinesIn(Rectangle2D rectangle) {
+        return this.<RenderedLine>query(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY(), LayoutEntityType.LINE);
+    }
+
+    /**
+     * Returns the nodes of the lines and spans which intersect the specified rectangle, each node once.
+     * <p>
+     * Spans that originate from Run nodes have no node of their own and are represented by the paragraph of their line.
+     */
+    public final java.util.ArrayList<Node> getNodesIn(Rectangle2D rectangle) {
+        java.util.ArrayList<Node> nodes = new java.util.ArrayList<Node>();
+        java.util.IdentityHashMap<Node, Boolean> added = new java.util.IdentityHashMap<Node, Boolean>();
+        for (LayoutEntity entity : this.<LayoutEntity>query(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY(),
+                LayoutEntityType.LINE | LayoutEntityType.SPAN)) {
+            Node node = entity.getParentNode();
+            if (node == null && entity.getType() == LayoutEntityType.SPAN) {
+                node = entity.getParent().getParentNode();
+            }
+
+            if (node != null && added.put(node, Boolean.TRUE) == null) {
+                nodes.add(node);
+            }
+        }
+
+        return nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends LayoutEntity> LayoutCollection<T> query(double left, double top, double right, double bottom, int type) {
+        int stamp = ++mStamp;
+        IntList matches = new IntList();
+        for (int row = getRow(top); row <= getRow(bottom); row++) {
+            for (int column = getColumn(left); column <= getColumn(right); column++) {
+                for (int i : mCells[row * mColumns + column]) {
+                    if (mVisited[i] == stamp) {
+                        continue;
+                    }
+
+                    mVisited[i] = stamp;
+                    int entity = mEntities[i];
+                    if ((mStore.getType(entity) & type) != 0
+                            && mStore.getLeft(entity) <= right && mStore.getRight(entity) >= left
+                            && mStore.getTop(entity) <= bottom && mStore.getBottom(entity) >= top) {
+                        matches.add(i);
+                    }
+                }
+            }
+        }
+
+        // Positions in mEntities follow layout order, so sorting them restores it after visiting several cells.
+        int[] positions = matches.toArray();
+        java.util.Arrays.sort(positions);
+        java.util.ArrayList<T> result = new java.util.ArrayList<T>(positions.length);
+        for (int i : positions) {
+            result.add((T) mStore.getEntity(mEntities[i]));
+        }
+
+        return new LayoutCollection<T>(result);
+    }
+
+    private void collectEntities(int parent, IntList entities) {
+        for (int child = mStore.getFirstChild(parent); child != LayoutStore.NONE; child = mStore.getNextSibling(child)) {
+            int type = mStore.getType(child);
+            if (type == LayoutEntityType.LINE || type == LayoutEntityType.SPAN) {
+                entities.add(child);
+            }
+
+            collectEntities(child, entities);
+        }
+    }
+
+    private int getRow(double y) {
+        return Math.min(mRows - 1, Math.max(0, (int) (y / mCellSize)));
+    }
+
+    private int getColumn(double x) {
+        return Math.min(mColumns - 1, Math.max(0, (int) (x / mCellSize)));
+    }
+
+    /**
+     * Growable list of primitive ints.
+     */
+    private static class IntList {
+        void add(int value) {
+            if (mSize == mValues.length) {
+                mValues = java.util.Arrays.copyOf(mValues, mSize * 2);
+            }
+
+            mValues[mSize++] = value;
+        }
+
+        int[] toArray() {
+            return java.util.Arrays.copyOf(mValues, mSize);
+        }
+
+        private int[] mValues = new int[16];
+        private int mSize;
+    }
+
+    private final LayoutStore mStore;
+    private final float mCellSize;
+    private final int mColumns;
+    private final int mRows;
+    // Store indexes of the indexed entities in layout order.
+    private final int[] mEntities;
+    // Positions in mEntities of the entities overlapping each cell, cells in row-major order.
+    private final int[][] mCells;
+    // Stamp of the last query which tested each entity, so entities spanning several cells are tested once.
+    private final int[] mVisited;
+    private int mStamp;
+}
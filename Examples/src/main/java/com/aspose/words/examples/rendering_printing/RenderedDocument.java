@@ -12,18 +12,39 @@ public class RenderedDocument extends LayoutEntity {
      * @throws Exception
      */
     public RenderedDocument(Document doc) throws Exception {
+        this(doc, false);
+    }
+
+    /**
+     * Creates a new instance from the supplied Aspose.Words.Document class.
+     *
+     * @param document A document whose page layout model to enumerate.
+     * @param lazy     If true only the pages are enumerated up front. The entities of a page are built and linked to
+     *                 their nodes when the page is first accessed, e.g. through getColumns() or getText(), and are
+     *                 kept for later calls. The instance must then not be used from several threads at once.
+     * @throws Exception
+     */
+    public RenderedDocument(Document doc, boolean lazy) throws Exception {
+        LayoutStore store = new LayoutStore();
+        attach(store, store.addRoot(this));
         mLayoutCollector = new LayoutCollector(doc);
         mEnumerator = new LayoutEnumerator(doc);
-        ProcessLayoutElements(this);
-        CollectLinesAndAddToMarkers();
-        LinkLayoutMarkersToNodes(doc);
+
+        if (lazy) {
+            ProcessPages();
+            mNodeIndexPending = true;
+        } else {
+            ProcessLayoutElements(this);
+            CollectLinesAndAddToMarkers();
+            LinkLayoutMarkersToNodes(doc);
+        }
     }
 
     /**
      * Provides access to the pages of a document.
      */
     public final LayoutCollection<RenderedPage> getPages() {
-        return GetChildNodes(new RenderedPage());
+        return GetChildNodes(LayoutEntityType.PAGE);
     }
 
     /**
@@ -37,32 +58,38 @@ public class RenderedDocument extends LayoutEntity {
         }
 
         if (node.getNodeType() == NodeType.DOCUMENT) {
-            return new LayoutCollection<LayoutEntity>(mChildEntities);
+            return new LayoutCollection<LayoutEntity>(getChildEntityList());
         }
 
-        java.util.ArrayList<LayoutEntity> entities = new java.util.ArrayList<LayoutEntity>();
-        for (LayoutEntity entity : GetChildEntities(~LayoutEntityType.NONE, true)) {
-            try {
-                // Retrieve all entities from the layout document (inversion of LayoutEntityType.None).
-
-                if (entity.getParentNode() == node) {
-                    entities.add(entity);
-                }
+        // The index needs every page, so in lazy mode the remaining pages are loaded on the first call.
+        if (mNodeIndexPending) {
+            mNodeIndexPending = false;
+            IndexLayoutEntitiesByNode();
+        }
 
-                if (entity.getType() == LayoutEntityType.ROW) {
-                    RenderedRow row = (RenderedRow) entity;
-                    if (row.getTable() == node) {
-                        entities.add(entity);
-                    }
-                }
+        java.util.ArrayList<LayoutEntity> entities = mNodeToEntitiesLookup.get(node);
+        if (entities == null) {
+            entities = new java.util.ArrayList<LayoutEntity>();
+        }
 
-            } catch (RuntimeException ex) {
+        return new LayoutCollection<LayoutEntity>(entities);
+    }
 
-                throw ex;
-            }
+    /**
+     * Returns the spatial index of the lines and spans of the specified page for hit-testing and region queries.
+     * <p>
+     * The index is built on the first call for the page and kept for later calls.
+     *
+     * @param pageIndex 1-based index of the page.
+     */
+    public final LayoutSpatialIndex GetSpatialIndex(int pageIndex) {
+        LayoutSpatialIndex index = mSpatialIndexes.get(pageIndex);
+        if (index == null) {
+            index = new LayoutSpatialIndex(getPages().getItem(pageIndex - 1), SPATIAL_INDEX_CELL_SIZE);
+            mSpatialIndexes.put(pageIndex, index);
         }
 
-        return new LayoutCollection<LayoutEntity>(entities);
+        return index;
     }
 
     private void ProcessLayoutElements(LayoutEntity current) throws Exception {
@@ -80,6 +107,123 @@ public class RenderedDocument extends LayoutEntity {
         } while (mEnumerator.moveNext());
     }
 
+    private void ProcessPages() throws Exception {
+        do {
+            RenderedPage page = (RenderedPage) AddChildEntity(mEnumerator);
+            page.setPageLoader(this);
+        } while (mEnumerator.moveNext());
+    }
+
+    /**
+     * Builds the entities of a page enumerated in lazy mode and links its lines and spans to their nodes.
+     */
+    final void LoadPage(RenderedPage page) {
+        try {
+            mEnumerator.setCurrent(page.getLayoutObject());
+            if (mEnumerator.moveFirstChild()) {
+                ProcessLayoutElements(page);
+            }
+
+            LinkLinesOfPage(page, (int) LayoutEntityType.COLUMN);
+            LinkLinesOfPage(page, (int) LayoutEntityType.COMMENT);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to build the layout entities of page " + page.getPageIndex() + ".", e);
+        }
+    }
+
+    /**
+     * Per-page counterpart of CollectLinesOfMarkersCore and LinkLayoutMarkersToNodes. Lines are linked when the marker
+     * span of their node is reached, lines left at the end of the page belong to a node whose marker is on a later page.
+     */
+    private void LinkLinesOfPage(RenderedPage page, int type) throws Exception {
+        java.util.HashMap<Object, Node> markerNodes = GetMarkerNodeLookup();
+        java.util.ArrayList<RenderedLine> collectedLines = new java.util.ArrayList<RenderedLine>();
+
+        for (LayoutEntity story : page.GetChildEntities(type, false)) {
+            for (LayoutEntity le : story.GetChildEntities((int) LayoutEntityType.LINE, true)) {
+                RenderedLine line = (RenderedLine) le;
+                collectedLines.add(line);
+                for (RenderedSpan span : line.getSpans()) {
+                    Node node = markerNodes.get(span.getLayoutObject());
+                    if (IsMarkerSpan(span.getKind())) {
+                        LinkLinesToNode(collectedLines, node);
+                        collectedLines = new java.util.ArrayList<RenderedLine>();
+                    } else if (node != null) {
+                        span.setParentNode(node);
+                    }
+                }
+            }
+        }
+
+        if (collectedLines.size() > 0) {
+            LinkLinesToNode(collectedLines, FindMarkerNodeAfter(collectedLines.get(collectedLines.size() - 1)));
+        }
+    }
+
+    private static void LinkLinesToNode(java.util.ArrayList<RenderedLine> lines, Node node) {
+        if (node == null) {
+            return;
+        }
+
+        switch (node.getNodeType()) {
+            case NodeType.PARAGRAPH:
+                for (RenderedLine line : lines) {
+                    line.setParentNode(node);
+                }
+                break;
+
+            case NodeType.ROW:
+                for (RenderedLine line : lines) {
+                    line.setParentNode(((Row) node).getLastCell().getLastParagraph());
+                }
+                break;
+        }
+    }
+
+    /**
+     * Follows the lines after the specified one in logical order, across pages, up to the next marker span.
+     */
+    private Node FindMarkerNodeAfter(RenderedLine line) throws Exception {
+        mEnumerator.setCurrent(line.getLayoutObject());
+        while (mEnumerator.moveNextLogical()) {
+            if (mEnumerator.getType() != LayoutEntityType.LINE || !mEnumerator.moveFirstChild()) {
+                return null;
+            }
+
+            do {
+                if (IsMarkerSpan(mEnumerator.getKind())) {
+                    return GetMarkerNodeLookup().get(mEnumerator.getCurrent());
+                }
+            } while (mEnumerator.moveNext());
+
+            mEnumerator.moveParent();
+        }
+
+        return null;
+    }
+
+    /**
+     * Maps the layout object of every node which has one to the node, without building any layout entities.
+     */
+    @SuppressWarnings("unchecked")
+    private java.util.HashMap<Object, Node> GetMarkerNodeLookup() throws Exception {
+        if (mLayoutToNodeLookup == null) {
+            mLayoutToNodeLookup = new java.util.HashMap<Object, Node>();
+            for (Node node : (Iterable<Node>) mLayoutCollector.getDocument().getChildNodes(NodeType.ANY, true)) {
+                Object entity = mLayoutCollector.getEntity(node);
+                if (entity != null) {
+                    mLayoutToNodeLookup.put(entity, node);
+                }
+            }
+        }
+
+        return mLayoutToNodeLookup;
+    }
+
+    private static boolean IsMarkerSpan(String kind) {
+        return kind.equals("PARAGRAPH") || kind.equals("ROW") || kind.equals("CELL") || kind.equals("SECTION");
+    }
+
     private void CollectLinesAndAddToMarkers() {
         CollectLinesOfMarkersCore((int) LayoutEntityType.COLUMN);
         CollectLinesOfMarkersCore((int) LayoutEntityType.COMMENT);
@@ -97,7 +241,7 @@ public class RenderedDocument extends LayoutEntity {
                     RenderedLine line = (RenderedLine) le;
                     collectedLines.add(line);
                     for (RenderedSpan span : line.getSpans()) {
-                        if (span.getKind().equals("PARAGRAPH") || span.getKind().equals("ROW") || span.getKind().equals("CELL") || span.getKind().equals("SECTION")) {
+                        if (IsMarkerSpan(span.getKind())) {
                             mLayoutToLinesLookup.put(span.getLayoutObject(), collectedLines);
                             collectedLines = new java.util.ArrayList<RenderedLine>();
                         } else {
@@ -135,6 +279,39 @@ public class RenderedDocument extends LayoutEntity {
                     break;
             }
         }
+
+        IndexLayoutEntitiesByNode();
+    }
+
+    /**
+     * Maps every node to its layout entities in a single walk over the layout tree (inversion of LayoutEntityType.None),
+     * so GetLayoutEntitiesOfNode does not have to walk the tree on every call.
+     */
+    private void IndexLayoutEntitiesByNode() {
+        for (LayoutEntity entity : GetChildEntities(~LayoutEntityType.NONE, true)) {
+            AddToNodeIndex(entity.getParentNode(), entity);
+
+            if (entity.getType() == LayoutEntityType.ROW) {
+                Node row = entity.getParentNode();
+                if (row != null) {
+                    AddToNodeIndex(((Row) row).getParentTable(), entity);
+                }
+            }
+        }
+    }
+
+    private void AddToNodeIndex(Node node, LayoutEntity entity) {
+        if (node == null) {
+            return;
+        }
+
+        java.util.ArrayList<LayoutEntity> entities = mNodeToEntitiesLookup.get(node);
+        if (entities == null) {
+            entities = new java.util.ArrayList<LayoutEntity>();
+            mNodeToEntitiesLookup.put(node, entities);
+        }
+
+        entities.add(entity);
     }
 
     private java.util.ArrayList<RenderedLine> GetLinesOfNode(Node node) throws Exception {
@@ -150,6 +327,13 @@ public class RenderedDocument extends LayoutEntity {
 
     private LayoutCollector mLayoutCollector;
     private LayoutEnumerator mEnumerator;
-    private static java.util.HashMap<Object, java.util.ArrayList<RenderedLine>> mLayoutToLinesLookup = new java.util.HashMap<Object, java.util.ArrayList<RenderedLine>>();
-    private static java.util.HashMap<Object, RenderedSpan> mLayoutToSpanLookup = new java.util.HashMap<Object, RenderedSpan>();
+    private boolean mNodeIndexPending;
+    private java.util.HashMap<Object, Node> mLayoutToNodeLookup;
+    private java.util.HashMap<Integer, LayoutSpatialIndex> mSpatialIndexes = new java.util.HashMap<Integer, LayoutSpatialIndex>();
+
+    // A cell of half an inch holds a few words of body text.
+    private static final float SPATIAL_INDEX_CELL_SIZE = 36f;
+    private java.util.HashMap<Object, java.util.ArrayList<RenderedLine>> mLayoutToLinesLookup = new java.util.HashMap<Object, java.util.ArrayList<RenderedLine>>();
+    private java.util.HashMap<Object, RenderedSpan> mLayoutToSpanLookup = new java.util.HashMap<Object, RenderedSpan>();
+    private java.util.IdentityHashMap<Node, java.util.ArrayList<LayoutEntity>> mNodeToEntitiesLookup = new java.util.IdentityHashMap<Node, java.util.ArrayList<LayoutEntity>>();
 }
@@ -13,27 +13,60 @@ import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Base class used to provide GUI representation for document nodes.
+ * <p>
+ * Once the tree is shown, the document is only read and changed on the loader thread. The name and icon of an item
+ * are read when its tree node is created there, the text when the item is selected.
  */
 public class Item {
+    /**
+     * The number of child nodes that are added to the tree at a time. The rest are represented by a node
+     * that loads the next page when it is selected.
+     */
+    static final int PAGE_SIZE = 500;
+
     private Node mNode;
     private DefaultMutableTreeNode mTreeNode;
     private ImageIcon mIcon;
+    private String mDisplayName;
+
+    // The first child node that has not been added to the tree yet, or null before the first page is loaded.
+    // These fields are only used on the event dispatch thread.
+    private Node mNextChild;
+    private boolean mIsLoading;
+    private boolean mIsExpandingAll;
 
     private static ArrayList<Field> mControlCharFields;
     private static Map<Integer, String> mNodeTypes;
     private static Map<Integer, String> mHeaderFooterTypes;
-    private static Map<String, String> mItemSet;
+    private static Map<Integer, Constructor<? extends Item>> mItemConstructors;
     private static ArrayList mIconNames = new ArrayList();
 
+    /**
+     * Child items are created on this thread, so expanding a node with many children does not block the user interface.
+     * A single thread is used so that only one page of the document is read at a time.
+     */
+    private static final ExecutorService mLoader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DocumentExplorer loader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * Creates Item for the supplied document node.
      */
@@ -82,12 +115,17 @@ public class Item {
 
     /**
      * Creates a TreeNode for this item to be displayed in the Document Explorer TreeView control.
+     * The name and the icon displayed in the tree are read from the document at the same time.
      */
     public DefaultMutableTreeNode getTreeNode() throws Exception {
         if (mTreeNode == null) {
+            mDisplayName = getName();
+            getIcon();
             mTreeNode = new DefaultMutableTreeNode(this);
-            if (!mIconNames.contains(getIconName())) {
-                mIconNames.add(getIconName());
+            synchronized (mIconNames) {
+                if (!mIconNames.contains(getIconName())) {
+                    mIconNames.add(getIconName());
+                }
             }
 
             if (mNode instanceof CompositeNode && ((CompositeNode) mNode).getChildNodes().getCount() > 0) {
@@ -118,17 +156,206 @@ public class Item {
     }
 
     /**
-     * Provides lazy on-expand loading of underlying tree nodes.
+     * Provides lazy on-expand loading of underlying tree nodes. Only the first page of child nodes is loaded.
      */
     public void onExpand() throws Exception {
-        if ("#dummy".equals(getTreeNode().getFirstChild().toString())) {
-            getTreeNode().removeAllChildren();
-            Globals.mTreeModel.reload(getTreeNode());
-            for (Object o : ((CompositeNode) mNode).getChildNodes()) {
-                Node n = (Node) o;
-                getTreeNode().add(Item.createItem(n).getTreeNode());
+        if (getTreeNode().getChildCount() > 0 && "#dummy".equals(getTreeNode().getFirstChild().toString()))
+            loadNextPage();
+    }
+
+    /**
+     * Stops expanding the child nodes that are loaded later when the tree node is collapsed during Expand All.
+     */
+    public void onCollapse() {
+        mIsExpandingAll = false;
+    }
+
+    /**
+     * Expands the tree node and all tree nodes below it, loading every page of child nodes as it arrives.
+     */
+    public void expandAll() throws Exception {
+        mIsExpandingAll = true;
+        DefaultMutableTreeNode treeNode = getTreeNode();
+        if (treeNode.isLeaf())
+            return;
+
+        Globals.mTree.expandPath(new TreePath(treeNode.getPath()));
+        for (int i = 0; i < treeNode.getChildCount(); i++) {
+            Object userObject = ((DefaultMutableTreeNode) treeNode.getChildAt(i)).getUserObject();
+            if (userObject instanceof Item)
+                ((Item) userObject).expandAll();
+        }
+
+        if (((DefaultMutableTreeNode) treeNode.getLastChild()).getUserObject() instanceof MoreChildren)
+            loadNextPage();
+    }
+
+    /**
+     * Collapses the tree node and all loaded tree nodes below it, and stops Expand All for all of them.
+     * Collapsing is done from the bottom up.
+     */
+    public void collapseAll() throws Exception {
+        mIsExpandingAll = false;
+        DefaultMutableTreeNode treeNode = getTreeNode();
+        for (int i = 0; i < treeNode.getChildCount(); i++) {
+            Object userObject = ((DefaultMutableTreeNode) treeNode.getChildAt(i)).getUserObject();
+            if (userObject instanceof Item)
+                ((Item) userObject).collapseAll();
+        }
+
+        Globals.mTree.collapsePath(new TreePath(treeNode.getPath()));
+    }
+
+    /**
+     * Creates the items of the next page of child nodes on the loader thread and adds them to the tree in place of the
+     * last child tree node, which is either the dummy node or the node that represents the remaining children.
+     */
+    void loadNextPage() {
+        if (mIsLoading)
+            return;
+        mIsLoading = true;
+
+        final DefaultMutableTreeNode placeholder = (DefaultMutableTreeNode) mTreeNode.getLastChild();
+        placeholder.setUserObject("Loading...");
+        Globals.mTreeModel.nodeChanged(placeholder);
+
+        final Node firstChild = mNextChild;
+        mLoader.execute(new Runnable() {
+            public void run() {
+                final ArrayList<DefaultMutableTreeNode> children = new ArrayList<DefaultMutableTreeNode>();
+                Node child = firstChild;
+                Exception error = null;
+                try {
+                    if (child == null)
+                        child = ((CompositeNode) mNode).getFirstChild();
+
+                    while (child != null && children.size() < PAGE_SIZE) {
+                        children.add(createItem(child).getTreeNode());
+                        child = child.getNextSibling();
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+
+                final Node nextChild = child;
+                final Exception loadError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        onPageLoaded(placeholder, children, nextChild, loadError);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Adds a loaded page of child tree nodes to the tree. Called on the event dispatch thread.
+     */
+    private void onPageLoaded(DefaultMutableTreeNode placeholder, List<DefaultMutableTreeNode> children, Node nextChild,
+                              Exception error) {
+        mIsLoading = false;
+
+        // Another document may have been opened in the meantime.
+        if (mTreeNode.getRoot() != Globals.mRootNode)
+            return;
+
+        if (error != null) {
+            // Let the user retry the same page.
+            placeholder.setUserObject(new MoreChildren(this));
+            Globals.mTreeModel.nodeChanged(placeholder);
+            new ErrorDialog(error);
+            return;
+        }
+
+        // The children are inserted before the placeholder is removed, so the tree node stays expanded.
+        int index = mTreeNode.getIndex(placeholder);
+        int[] childIndices = new int[children.size()];
+        for (int i = 0; i < children.size(); i++) {
+            mTreeNode.insert(children.get(i), index + i);
+            childIndices[i] = index + i;
+        }
+        if (childIndices.length > 0)
+            Globals.mTreeModel.nodesWereInserted(mTreeNode, childIndices);
+
+        mNextChild = nextChild;
+        if (nextChild == null) {
+            Globals.mTreeModel.removeNodeFromParent(placeholder);
+        } else {
+            placeholder.setUserObject(new MoreChildren(this));
+            Globals.mTreeModel.nodeChanged(placeholder);
+        }
+
+        if (mIsExpandingAll) {
+            try {
+                for (DefaultMutableTreeNode child : children)
+                    ((Item) child.getUserObject()).expandAll();
+            } catch (Exception e) {
+                new ErrorDialog(e);
             }
+
+            if (nextChild != null)
+                loadNextPage();
+        }
+    }
+
+    /**
+     * Reads the text of the node and whether it can be removed on the loader thread, and shows them if the tree node
+     * is still selected when they have been read.
+     */
+    void showDetails() {
+        mLoader.execute(new Runnable() {
+            public void run() {
+                String text;
+                boolean isRemovable;
+                try {
+                    text = getText();
+                    isRemovable = isRemovable();
+                } catch (Exception e) {
+                    text = "";
+                    isRemovable = false;
+                }
+
+                final String nodeText = text;
+                final boolean isNodeRemovable = isRemovable;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (mTreeNode.getRoot() != Globals.mRootNode || Globals.mTree.getLastSelectedPathComponent() != mTreeNode)
+                            return;
+
+                        Globals.mMainForm.textArea.setText(nodeText);
+                        Globals.mMainForm.textArea.moveCaretPosition(0);
+                        Globals.mMainForm.toolRemove.setEnabled(isNodeRemovable);
+                        Globals.mMainForm.menuRemoveNode.setEnabled(isNodeRemovable);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs the task on the loader thread, after the reads and changes of the document that were started before it.
+     */
+    static void runOnLoader(Runnable task) {
+        mLoader.execute(task);
+    }
+
+    /**
+     * The user object of the tree node that represents the child nodes which have not been loaded yet.
+     */
+    static class MoreChildren {
+        MoreChildren(Item owner) {
+            mOwner = owner;
         }
+
+        Item getOwner() {
+            return mOwner;
+        }
+
+        public String toString() {
+            return "Load more...";
+        }
+
+        private final Item mOwner;
     }
 
     /**
@@ -143,11 +370,46 @@ public class Item {
     }
 
     /**
-     * Removes this node from the document and the tree.
+     * Removes this node from the document on the loader thread, and then from the tree.
      */
-    public void remove() throws Exception {
-        if (this.isRemovable()) {
-            mNode.remove();
+    public void remove() {
+        mLoader.execute(new Runnable() {
+            public void run() {
+                boolean isRemoved = false;
+                Exception error = null;
+                try {
+                    if (isRemovable()) {
+                        mNode.remove();
+                        isRemoved = true;
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+
+                final boolean isNodeRemoved = isRemoved;
+                final Exception removeError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        onRemoved(isNodeRemoved, removeError);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Removes the tree node of a node removed from the document. Called on the event dispatch thread.
+     */
+    private void onRemoved(boolean isRemoved, Exception error) {
+        if (mTreeNode.getRoot() != Globals.mRootNode)
+            return;
+
+        if (error != null) {
+            new ErrorDialog(error);
+            return;
+        }
+
+        if (isRemoved) {
             TreeNode parent = mTreeNode.getParent();
             mTreeNode.removeFromParent();
             Globals.mTreeModel.reload(parent);
@@ -168,17 +430,6 @@ public class Item {
      * Static ctor.
      */
     static {
-        // Populate a list of node types along with their class implementation.
-        mItemSet = new HashMap<String, String>();
-        for (Class itemClass : DocumentItems.class.getDeclaredClasses()) {
-            try {
-                String nodeTypeString = (String) itemClass.getField("NODE_TYPE_STRING").get(null);
-                mItemSet.put(nodeTypeString, itemClass.getName());
-            } catch (Exception e) {
-                // IllegalAccessException, NoSuchFieldException or NoSuchMethodException - skip such exceptions if there are any.
-            }
-        }
-
         // Fill a list containing the information of each control char.
         mControlCharFields = new ArrayList<Field>();
         Field[] fields = ControlChar.class.getFields();
@@ -204,6 +455,22 @@ public class Item {
             }
         }
 
+        // Populate a map of node types along with the constructor of their class implementation, so that
+        // createItem does not need to look up the class for every node.
+        mItemConstructors = new HashMap<Integer, Constructor<? extends Item>>();
+        for (Class<?> itemClass : DocumentItems.class.getDeclaredClasses()) {
+            try {
+                String nodeTypeString = (String) itemClass.getField("NODE_TYPE_STRING").get(null);
+                Constructor<? extends Item> constructor = itemClass.asSubclass(Item.class).getConstructor(DocumentItems.class, Node.class);
+                for (Map.Entry<Integer, String> nodeType : mNodeTypes.entrySet()) {
+                    if (nodeType.getValue().equals(nodeTypeString))
+                        mItemConstructors.put(nodeType.getKey(), constructor);
+                }
+            } catch (Exception e) {
+                // IllegalAccessException, NoSuchFieldException or NoSuchMethodException - skip such exceptions if there are any.
+            }
+        }
+
         // Maps header/footer type integer values to string names.
         mHeaderFooterTypes = new HashMap<Integer, String>();
         fields = HeaderFooterType.class.getFields();
@@ -223,28 +490,20 @@ public class Item {
     /**
      * Item class factory implementation.
      */
-    public static Item createItem(Node node) throws ClassNotFoundException, NoSuchMethodException,
-            IllegalAccessException, InvocationTargetException,
+    public static Item createItem(Node node) throws IllegalAccessException, InvocationTargetException,
             InstantiationException {
-        String typeName = getNodeTypeString(node);
-        if (mItemSet.containsKey(typeName))
-            return (Item) Class.forName(mItemSet.get(typeName)).
-                    getConstructor(DocumentItems.class, Node.class).
-                    newInstance(null, node);
+        Constructor<? extends Item> constructor = mItemConstructors.get(node.getNodeType());
+        if (constructor != null)
+            return constructor.newInstance(null, node);
         else
             return new Item(node);
     }
 
     /**
-     * Object.toString method used by Tree.
+     * Object.toString method used by Tree. Returns the name read when the tree node was created.
      */
     public String toString() {
-        // Introduced non-checked RuntimeException on purpose to not change Object.toString() signature
-        try {
-            return getName();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return mDisplayName;
     }
 
     /**
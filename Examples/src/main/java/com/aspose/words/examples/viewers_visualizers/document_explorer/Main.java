@@ -19,7 +19,6 @@ import javax.swing.tree.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
-import java.util.Enumeration;
 
 /**
  * The main form of the DocumentExplorer demo.
@@ -200,66 +199,69 @@ public class Main implements TreeWillExpandListener, TreeSelectionListener, KeyL
      * dialog.
      */
     private void onSaveAs() {
-        String fileName = Dialogs.saveDocument();
+        final String fileName = Dialogs.saveDocument();
         if ("".equals(fileName) || Globals.mDocument == null) {
             return;
         }
         Globals.mMainForm.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-        try {
-            Globals.mDocument.save(fileName);
-        } catch (Exception e) {
-            new ErrorDialog(e);
-        } finally {
-            // Set the cursor back to normal even if an exception occurs.
-            Globals.mMainForm.setCursor(null);
-        }
+        // The document is saved on the thread that reads it for the tree.
+        final Document document = Globals.mDocument;
+        Item.runOnLoader(new Runnable() {
+            public void run() {
+                Exception error = null;
+                try {
+                    document.save(fileName);
+                } catch (Exception e) {
+                    error = e;
+                }
+
+                final Exception saveError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        // Set the cursor back to normal even if an exception occurs.
+                        Globals.mMainForm.setCursor(null);
+                        if (saveError != null)
+                            new ErrorDialog(saveError);
+                    }
+                });
+            }
+        });
     }
 
     /**
-     * Expand all child nodes under the selected node.
+     * Expand all child nodes under the selected node. Child nodes are loaded in the background
+     * and expanded as they arrive.
      */
     private void onExpandAll() {
         TreePath path = Globals.mTree.getSelectionPath();
         if (path != null) {
-            Globals.mMainForm.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-            expandAll(Globals.mTree, path, true);
-            Globals.mMainForm.setCursor(null);
+            Object userObject = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+            if (userObject instanceof Item) {
+                try {
+                    ((Item) userObject).expandAll();
+                } catch (Exception e) {
+                    new ErrorDialog(e);
+                }
+            }
         }
     }
 
     /**
-     * Collapse all child nodes under the selected node
+     * Collapse all child nodes under the selected node. Stops Expand All for them.
      */
     private void onCollapseAll() {
         TreePath path = Globals.mTree.getSelectionPath();
         if (path != null) {
-            Globals.mMainForm.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-            expandAll(Globals.mTree, path, false);
-            Globals.mMainForm.setCursor(null);
-        }
-    }
-
-    private void expandAll(JTree tree, TreePath parent, boolean expand) {
-        // Traverse children.
-        TreeNode node = (TreeNode) parent.getLastPathComponent();
-
-        // Expansion or collapse must be done from the bottom-up
-        if (expand) {
-            tree.expandPath(parent);
-        }
-
-        if (node.getChildCount() >= 0) {
-            for (Enumeration e = node.children(); e.hasMoreElements(); ) {
-                TreeNode n = (TreeNode) e.nextElement();
-                TreePath path = parent.pathByAddingChild(n);
-                expandAll(tree, path, expand);
+            Object userObject = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+            if (userObject instanceof Item) {
+                try {
+                    ((Item) userObject).collapseAll();
+                } catch (Exception e) {
+                    new ErrorDialog(e);
+                }
             }
         }
-
-        if (!expand) {
-            tree.collapsePath(parent);
-        }
     }
 
     /**
@@ -278,6 +280,10 @@ public class Main implements TreeWillExpandListener, TreeSelectionListener, KeyL
     }
 
     public void treeWillCollapse(TreeExpansionEvent event) throws ExpandVetoException {
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) event.getPath().getLastPathComponent();
+        if (node != null && node.getUserObject() instanceof Item) {
+            ((Item) node.getUserObject()).onCollapse();
+        }
     }
 
     /**
@@ -290,22 +296,21 @@ public class Main implements TreeWillExpandListener, TreeSelectionListener, KeyL
         if (node == null) {
             return;
         }
-        try {
-            // This operation can take some time so we set the Cursor to WaitCursor.
-            Globals.mMainForm.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-            // Show the text contained by selected document node.
-            Item selectedItem = (Item) node.getUserObject();
-            Globals.mMainForm.textArea.setText(selectedItem.getText());
-            Globals.mMainForm.textArea.moveCaretPosition(0);
 
-            Globals.mMainForm.toolRemove.setEnabled(selectedItem.isRemovable());
-            Globals.mMainForm.menuRemoveNode.setEnabled(selectedItem.isRemovable());
-
-            // Restore cursor.
-            Globals.mMainForm.setCursor(null);
-        } catch (Exception ex) {
+        // Selecting the node that stands for the children not loaded yet loads the next page of them.
+        if (node.getUserObject() instanceof Item.MoreChildren) {
             Globals.mMainForm.textArea.setText("");
+            ((Item.MoreChildren) node.getUserObject()).getOwner().loadNextPage();
+            return;
         }
+
+        // Show the text contained by selected document node. It is read from the document in the background,
+        // until then nothing is shown and the node cannot be removed.
+        Globals.mMainForm.textArea.setText("");
+        Globals.mMainForm.toolRemove.setEnabled(false);
+        Globals.mMainForm.menuRemoveNode.setEnabled(false);
+        if (node.getUserObject() instanceof Item)
+            ((Item) node.getUserObject()).showDetails();
     }
 
     /**
@@ -18,4 +18,11 @@ public final class Constants {
 
 	public static final String HTML_TO_WORD_CONVERSION_ERROR_MESSAGE = "Failed to save Webpage content in Word Processing Document";
 	public static final String WORD_FILE_NAME = "WebPageContentInWord.docx";
+	public static final String SERVER_BUSY_MESSAGE = "Too many Web pages are being exported to Word Processing Documents, please try again later";
+
+	public static final String MAX_CONCURRENT_EXPORTS_PARAMETER = "maxConcurrentExports";
+	public static final String CHUNKED_PARAMETER = "chunked";
+	public static final int EXPORT_PERMIT_TIMEOUT_SECONDS = 30;
+	public static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+	public static final int MAX_POOLED_BUFFER_SIZE = 8 * 1024 * 1024;
 }
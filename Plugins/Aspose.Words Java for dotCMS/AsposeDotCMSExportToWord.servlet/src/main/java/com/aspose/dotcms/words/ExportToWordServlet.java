@@ -13,7 +13,6 @@
 package com.aspose.dotcms.words;
 
 import javax.servlet.ServletException;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -22,28 +21,91 @@ import com.aspose.words.Document;
 import com.aspose.words.SaveFormat;
 import java.io.*;
 import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Converts the Web page given by the page_url parameter to a DOCX document and sends it to the client.
+ * The document is saved straight into the response when chunked transfer is enabled, otherwise into a pooled
+ * in-memory buffer so the Content-Length header can be set. No file is written to disk, so concurrent requests
+ * never share any output. The number of conversions running at the same time is limited; requests that cannot
+ * start a conversion in time are answered with 503 Service Unavailable.
+ */
 public class ExportToWordServlet extends HttpServlet {
 
     private static final long serialVersionUID = 42L;
 
+    private int maxConcurrentExports;
+    private boolean chunked;
+    private transient Semaphore exportPermits;
+    private transient BlockingQueue<PooledBuffer> bufferPool;
+
     public ExportToWordServlet ( ) {
+        this(Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * @param maxConcurrentExports The number of conversions allowed to run at the same time.
+     * @param chunked              True to stream the document to the client without a Content-Length header.
+     */
+    public ExportToWordServlet ( int maxConcurrentExports, boolean chunked ) {
+        this.maxConcurrentExports = maxConcurrentExports;
+        this.chunked = chunked;
+    }
+
+    public void init ( ) throws ServletException {
+        // The init parameters, when the servlet is registered with any, override the constructor arguments.
+        String maxConcurrentExportsParameter = getInitParameter(Constants.MAX_CONCURRENT_EXPORTS_PARAMETER);
+        if (maxConcurrentExportsParameter != null) {
+            maxConcurrentExports = Integer.parseInt(maxConcurrentExportsParameter);
+        }
+        String chunkedParameter = getInitParameter(Constants.CHUNKED_PARAMETER);
+        if (chunkedParameter != null) {
+            chunked = Boolean.parseBoolean(chunkedParameter);
+        }
+
+        exportPermits = new Semaphore(maxConcurrentExports, true);
+        // At most one buffer per running conversion is ever in use.
+        bufferPool = new ArrayBlockingQueue<PooledBuffer>(maxConcurrentExports);
     }
     
     protected void doGet ( HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) throws ServletException, IOException {
         //Get Web page URL
         String pageURL = getPageURL(httpServletRequest);
-        
-		try {
-			//Save Web page content in Word Processing document
-			String fileName = savePageContentInWordProcessingDocument(pageURL);
-			//Send Document to Client
-	        sendDocumentToClient(fileName, httpServletResponse);
-		} catch (Exception e) {
-			OutputStream os= httpServletResponse.getOutputStream();
-	        os.write(Constants.HTML_TO_WORD_CONVERSION_ERROR_MESSAGE.getBytes());
-			os.flush();
-		}
+
+        boolean acquired = false;
+        try {
+            acquired = exportPermits.tryAcquire(Constants.EXPORT_PERMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            httpServletResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, Constants.SERVER_BUSY_MESSAGE);
+            return;
+        }
+
+        try {
+            if (chunked) {
+                //Convert Web page content straight into the response
+                sendDocumentToClient(pageURL, httpServletResponse);
+            } else {
+                //Save Web page content in Word Processing document and send it with its length
+                sendBufferedDocumentToClient(pageURL, httpServletResponse);
+            }
+        } catch (Exception e) {
+            // Nothing can be sent in place of a document that has already been partly sent.
+            if (httpServletResponse.isCommitted()) {
+                throw new ServletException(e.getMessage(), e);
+            }
+            httpServletResponse.reset();
+            OutputStream os = httpServletResponse.getOutputStream();
+            os.write(Constants.HTML_TO_WORD_CONVERSION_ERROR_MESSAGE.getBytes());
+            os.flush();
+        } finally {
+            exportPermits.release();
+        }
     }
     
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -62,50 +124,74 @@ public class ExportToWordServlet extends HttpServlet {
         return pageURL;
     }
     
-    public String savePageContentInWordProcessingDocument(String pageURL) throws Exception {
-    	String fileName = null;
-    	
+    /**
+     * Loads the Web page and saves its content as a DOCX document into the specified stream.
+     */
+    public void savePageContentInWordProcessingDocument(String pageURL, OutputStream output) throws Exception {
         URL url = new URL(pageURL);
         InputStream stream = url.openStream();
-        // Load the entire document into memory
-        Document doc = new Document(stream);
-        // Save the document DOCX file format
-        fileName = Constants.WORD_FILE_NAME;
-        File file = new File(fileName);
-        if(file.exists()) {
-        	file.delete();
+        try {
+            // Load the entire document into memory
+            Document doc = new Document(stream);
+            // Save the document DOCX file format
+            doc.save(output, SaveFormat.DOCX);
+        } finally {
+            stream.close();
         }
-        doc.save(fileName, SaveFormat.DOCX);
-        stream.close();       
-            
-        return fileName;
     }
-    
-    public void sendDocumentToClient(String fileName, HttpServletResponse response) throws ServletException, IOException {
-    	ServletOutputStream stream = null;
-        BufferedInputStream buf = null;
+
+    /**
+     * Converts the page straight into the response. The container sends the document with chunked transfer
+     * encoding as it is written.
+     */
+    public void sendDocumentToClient(String pageURL, HttpServletResponse response) throws Exception {
+        setDocumentHeaders(response);
+        OutputStream stream = response.getOutputStream();
+        savePageContentInWordProcessingDocument(pageURL, stream);
+        stream.flush();
+    }
+
+    /**
+     * Converts the page into a pooled memory buffer, then sends it with its Content-Length in one write.
+     */
+    public void sendBufferedDocumentToClient(String pageURL, HttpServletResponse response) throws Exception {
+        PooledBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = new PooledBuffer(Constants.INITIAL_BUFFER_SIZE);
+        }
         try {
-        	
-            stream = response.getOutputStream();
-            File file = new File(fileName);
-            
-            response.setContentType("application/msword");
-            response.addHeader("Content-Disposition", "attachment; filename="+ fileName);
-            response.setContentLength((int) file.length());
-	        
-            FileInputStream input = new FileInputStream(file);
-	        buf = new BufferedInputStream(input);
-	        int readBytes = 0;
-	        while ((readBytes = buf.read()) != -1) {
-	        	stream.write(readBytes);
-	        }
-        } catch (IOException ioe) {
-        	throw new ServletException(ioe.getMessage());
+            savePageContentInWordProcessingDocument(pageURL, buffer);
+
+            setDocumentHeaders(response);
+            response.setContentLength(buffer.size());
+            OutputStream stream = response.getOutputStream();
+            buffer.writeTo(stream);
+            stream.flush();
         } finally {
-          if (stream != null)
-        	  stream.close();
-          if (buf != null)
-            buf.close();
+            // Keep the buffer for the next request unless an unusually large document has grown it. The allocated
+            // capacity is checked, as a buffer keeps the array it grew to for a small document after reset.
+            if (buffer.capacity() <= Constants.MAX_POOLED_BUFFER_SIZE) {
+                buffer.reset();
+                bufferPool.offer(buffer);
+            }
+        }
+    }
+
+    private static void setDocumentHeaders(HttpServletResponse response) {
+        response.setContentType("application/msword");
+        response.addHeader("Content-Disposition", "attachment; filename="+ Constants.WORD_FILE_NAME);
+    }
+
+    /**
+     * A memory buffer which tells the size of the array it has allocated.
+     */
+    private static class PooledBuffer extends ByteArrayOutputStream {
+        PooledBuffer(int initialSize) {
+            super(initialSize);
+        }
+
+        int capacity() {
+            return buf.length;
         }
     }
-}
\ No newline at end of file
+}
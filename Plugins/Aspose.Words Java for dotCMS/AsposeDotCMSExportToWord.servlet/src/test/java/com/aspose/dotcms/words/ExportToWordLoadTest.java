@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 1998-2016 Aspose Pty Ltd.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.aspose.dotcms.words;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Load test for a running ExportToWordServlet. Every page is first exported on its own to get the expected
+ * document, then all pages are requested again by many clients at the same time and every response is checked
+ * against the expected document of its page.
+ * <p>
+ * The documents are compared by their main document part, word/document.xml, since the package also records the
+ * time it was saved. A response also fails when its length does not match its Content-Length header. Requests
+ * rejected with 503 because of the concurrency limit are counted separately. The test fails with an exception if any
+ * request failed. It is a test source, so it is not packaged with the plugin.
+ * <p>
+ * Usage: ExportToWordLoadTest servletUrl clientCount requestsPerPage pagePath...
+ * e.g. ExportToWordLoadTest http://localhost:8080/app/exporttoword 32 20 /about-us/index /products/index
+ */
+public class ExportToWordLoadTest {
+
+    private static final String MAIN_DOCUMENT_PART = "word/document.xml";
+
+    public static void main(String[] args) throws Exception {
+        final String servletUrl = args[0];
+        int clientCount = Integer.parseInt(args[1]);
+        int requestsPerPage = Integer.parseInt(args[2]);
+        List<String> pagePaths = Arrays.asList(args).subList(3, args.length);
+
+        final List<byte[]> expectedParts = new ArrayList<byte[]>();
+        for (String pagePath : pagePaths) {
+            Response response = export(servletUrl, pagePath);
+            if (response.status != HttpURLConnection.HTTP_OK) {
+                throw new IllegalStateException("Exporting " + pagePath + " failed with status " + response.status);
+            }
+            expectedParts.add(getMainDocumentPart(response.body));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(clientCount);
+        List<Future<Response>> responses = new ArrayList<Future<Response>>();
+        List<Integer> pageIndexes = new ArrayList<Integer>();
+        long startTime = System.nanoTime();
+        try {
+            // Interleave the pages so that different pages are converted at the same time.
+            for (int i = 0; i < requestsPerPage; i++) {
+                for (int page = 0; page < pagePaths.size(); page++) {
+                    final String pagePath = pagePaths.get(page);
+                    pageIndexes.add(page);
+                    responses.add(executor.submit(new Callable<Response>() {
+                        public Response call() throws Exception {
+                            return export(servletUrl, pagePath);
+                        }
+                    }));
+                }
+            }
+
+            int succeeded = 0;
+            int rejected = 0;
+            int failed = 0;
+            for (int i = 0; i < responses.size(); i++) {
+                Response response = responses.get(i).get();
+                String pagePath = pagePaths.get(pageIndexes.get(i));
+                if (response.status == HttpURLConnection.HTTP_UNAVAILABLE) {
+                    rejected++;
+                } else if (response.status != HttpURLConnection.HTTP_OK) {
+                    failed++;
+                    System.out.println(pagePath + ": status " + response.status);
+                } else if (response.contentLength >= 0 && response.contentLength != response.body.length) {
+                    failed++;
+                    System.out.println(pagePath + ": " + response.body.length + " bytes received, Content-Length is " + response.contentLength);
+                } else if (!Arrays.equals(expectedParts.get(pageIndexes.get(i)), getMainDocumentPart(response.body))) {
+                    failed++;
+                    System.out.println(pagePath + ": the document differs from the document exported on its own");
+                } else {
+                    succeeded++;
+                }
+            }
+
+            long elapsed = System.nanoTime() - startTime;
+            System.out.println(String.format("%d requests in %.1f s: %d correct, %d rejected as busy, %d failed",
+                    responses.size(), elapsed / 1e9, succeeded, rejected, failed));
+            if (failed > 0) {
+                throw new IllegalStateException(failed + " of " + responses.size() + " requests failed");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Response export(String servletUrl, String pagePath) throws IOException {
+        URL url = new URL(servletUrl + "?page_url=" + URLEncoder.encode(pagePath, "UTF-8"));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            Response response = new Response();
+            response.status = connection.getResponseCode();
+            response.contentLength = connection.getContentLength();
+            if (response.status == HttpURLConnection.HTTP_OK) {
+                response.body = readAll(connection.getInputStream());
+            }
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] getMainDocumentPart(byte[] document) throws IOException {
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(document));
+        try {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (MAIN_DOCUMENT_PART.equals(entry.getName())) {
+                    return readAll(zip);
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        throw new IOException("The response is not a DOCX document.");
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int readBytes;
+        while ((readBytes = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, readBytes);
+        }
+        return output.toByteArray();
+    }
+
+    private static class Response {
+        int status;
+        int contentLength;
+        byte[] body;
+    }
+}
@@ -1,16 +1,21 @@
 package com.books;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletOutputStream;
 
+import com.aspose.words.Cell;
 import com.aspose.words.CellVerticalAlignment;
 import com.aspose.words.DocumentBuilder;
 import com.aspose.words.Font;
 import com.aspose.words.HeightRule;
 import com.aspose.words.ParagraphAlignment;
+import com.aspose.words.Row;
+import com.aspose.words.Run;
+import com.aspose.words.Table;
 
 /**
  * 
@@ -18,6 +23,12 @@ import com.aspose.words.ParagraphAlignment;
  *
  */
 public class AsposeAPIHelper {
+	/**
+	 * The book attributes shown in the columns of the table, in column order.
+	 */
+	private static final String[] BOOK_COLUMNS = { "BookId", "BookName",
+			"AuthorName", "BookCost" };
+
 	/**
 	 * Creates word document from list of book provided from grid. 
 	 * 
@@ -28,6 +39,23 @@ public class AsposeAPIHelper {
 	 */
 	public static void createAsposeWordDoc(ServletOutputStream out,
 			List<Map> books, ServletContext context) throws Exception {
+		createAsposeWordDoc(out, books);
+	}
+
+	/**
+	 * Creates word document from list of books and writes it to the stream
+	 * in DOCX format.
+	 * 
+	 * Only one row of the books table is built with DocumentBuilder, with its
+	 * formatting applied once. That row is then cloned for every book and
+	 * only the text of its cells is set, which is much faster than inserting
+	 * and formatting the cells of every row.
+	 * 
+	 * @param  out the stream to write the document to.
+	 * @param  books books list as map containing attributes.
+	 */
+	public static void createAsposeWordDoc(OutputStream out, List<Map> books)
+			throws Exception {
 
 		try {
 
@@ -93,31 +121,37 @@ public class AsposeAPIHelper {
 			builder.getRowFormat().setHeight(30.0);
 			builder.getRowFormat().setHeightRule(HeightRule.AUTO);
 
-			for (Map book : books) {
-				String bookId = book.get("BookId").toString();
-				String bookName = book.get("BookName").toString();
-				String bookAuthorName = book.get("AuthorName").toString();
-				String bookCost = book.get("BookCost").toString();
-				builder.insertCell();
-				// Reset font formatting.
-				builder.getFont().setSize(12);
-				builder.getFont().setBold(false);
-				builder.write(bookId);
-				builder.insertCell();
-				builder.write(bookName);
-				builder.insertCell();
-				builder.write(bookAuthorName);
+			// Reset font formatting.
+			builder.getFont().setSize(12);
+			builder.getFont().setBold(false);
+
+			// Build the template row of the books. Every cell gets a
+			// placeholder text so that it holds a formatted run to set the
+			// value of the book into.
+			for (int i = 0; i < BOOK_COLUMNS.length; i++) {
 				builder.insertCell();
-				builder.write(bookCost);
-				builder.endRow();
+				builder.write(BOOK_COLUMNS[i]);
 			}
-			builder.endTable();
+			Row templateRow = builder.endRow();
+			Table table = builder.endTable();
+			templateRow.remove();
+
 			builder.insertParagraph();
 			builder.insertParagraph();
 
+			for (Map book : books) {
+				Row row = (Row) templateRow.deepClone(true);
+				for (int i = 0; i < BOOK_COLUMNS.length; i++) {
+					Cell cell = row.getCells().get(i);
+					Run run = cell.getFirstParagraph().getRuns().get(0);
+					run.setText(book.get(BOOK_COLUMNS[i]).toString());
+				}
+				table.appendChild(row);
+			}
+
 			// Save the document
 
-			doc.save(out, com.aspose.words.SaveFormat.DOC);
+			doc.save(out, com.aspose.words.SaveFormat.DOCX);
 
 		} catch (Exception e) {
 			throw new Exception(
@@ -90,17 +90,15 @@ public class BookActions extends DispatchAction {
 		Books b = Books.getInstance();
 
 		List<Map> books = b.getBookList();
-		response.setContentType("application/msword");
+		response.setContentType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 		response.setHeader("Content-Disposition",
-				"attachment;filename=AsposeExportBooksList.doc");
-		for (Map book : books) {
-			try {
-				AsposeAPIHelper.createAsposeWordDoc(response.getOutputStream(),
-						books, request.getServletContext());
-			} catch (Exception e) {
-				e.printStackTrace();
-
-			}
+				"attachment;filename=AsposeExportBooksList.docx");
+		// The document holds all books, it is written once.
+		try {
+			AsposeAPIHelper.createAsposeWordDoc(response.getOutputStream(),
+					books, request.getServletContext());
+		} catch (Exception e) {
+			e.printStackTrace();
 
 		}
 
@@ -0,0 +1,82 @@
+package com.books;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the throughput of AsposeAPIHelper.createAsposeWordDoc for
+ * growing numbers of books. The row counts to measure are passed as
+ * arguments, by default 1000, 10000 and 100000. The document is written to a
+ * stream which only counts the bytes, so the time is spent building and
+ * saving the document.
+ * 
+ * Run with a large heap, e.g. -Xmx2g, for the bigger row counts.
+ */
+public class AsposeAPIHelperBenchmark {
+
+	private static final int ITERATIONS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int[] rowCounts = { 1000, 10000, 100000 };
+		if (args.length > 0) {
+			rowCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				rowCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		// Warm up the JIT before measuring.
+		createAsposeWordDoc(createBooks(1000));
+
+		for (int rowCount : rowCounts) {
+			List<Map> books = createBooks(rowCount);
+			for (int i = 0; i < ITERATIONS; i++) {
+				long startTime = System.nanoTime();
+				long size = createAsposeWordDoc(books);
+				long elapsed = System.nanoTime() - startTime;
+
+				System.out.println(String.format(
+						"%d rows: %.0f ms, %.0f rows/s, %d KB",
+						rowCount, elapsed / 1e6, rowCount / (elapsed / 1e9),
+						size / 1024));
+			}
+		}
+	}
+
+	private static long createAsposeWordDoc(List<Map> books) throws Exception {
+		CountingOutputStream out = new CountingOutputStream();
+		AsposeAPIHelper.createAsposeWordDoc(out, books);
+		return out.count;
+	}
+
+	private static List<Map> createBooks(int count) {
+		List<Map> books = new ArrayList<Map>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> book = new HashMap<String, Object>();
+			book.put("BookId", 1000 + i);
+			book.put("BookName", "Book title number " + i);
+			book.put("AuthorName", "Author " + (i % 500));
+			book.put("BookCost", 100 + (i % 400));
+			books.add(book);
+		}
+		return books;
+	}
+
+	/**
+	 * Discards the bytes written to it and counts them.
+	 */
+	private static class CountingOutputStream extends OutputStream {
+		private long count;
+
+		public void write(int b) {
+			count++;
+		}
+
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}